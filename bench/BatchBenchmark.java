@@ -0,0 +1,118 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batches of random keys written and read with setAll and getAll, against
+ * the same keys one at a time with set and containsKey.  Reported per
+ * batch; divide by batch for the cost per key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+  @Param({"1000000"})
+  int size;
+
+  @Param({"16", "256", "4096", "65536"})
+  int batch;
+
+  /**
+   * A list holding the even keys in [0, 2 * size), so that half of the
+   * batch keys are new.
+   */
+  SkipList<Integer, Integer> list;
+
+  /**
+   * Batches of random keys in [0, 2 * size), as keys and as entries.
+   */
+  ArrayList<ArrayList<Integer>> keyBatches;
+  ArrayList<ArrayList<Map.Entry<Integer, Integer>>> entryBatches;
+
+  /**
+   * Which batch is next.
+   */
+  int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      list.set(2 * i, i);
+    } // for
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keyBatches = new ArrayList<ArrayList<Integer>>();
+    this.entryBatches = new ArrayList<ArrayList<Map.Entry<Integer, Integer>>>();
+    for (int b = 0; b < Math.max(1, BenchmarkData.STREAM_LENGTH / batch); b++) {
+      ArrayList<Integer> keys = new ArrayList<Integer>(batch);
+      ArrayList<Map.Entry<Integer, Integer>> entries =
+          new ArrayList<Map.Entry<Integer, Integer>>(batch);
+      for (int i = 0; i < batch; i++) {
+        Integer key = rand.nextInt(2 * size);
+        keys.add(key);
+        entries.add(new AbstractMap.SimpleEntry<Integer, Integer>(key, key));
+      } // for
+      keyBatches.add(keys);
+      entryBatches.add(entries);
+    } // for
+  } // setup()
+
+  int next() {
+    int b = cursor;
+    cursor = (cursor + 1) % keyBatches.size();
+    return b;
+  } // next()
+
+  /**
+   * The keys of a batch, one set at a time.  (Overwrites, once the list
+   * has seen every batch; the list does not keep growing.)
+   */
+  @Benchmark
+  public SkipList<Integer, Integer> setEach() {
+    for (Map.Entry<Integer, Integer> entry : entryBatches.get(next())) {
+      list.set(entry.getKey(), entry.getValue());
+    } // for
+    return list;
+  } // setEach()
+
+  @Benchmark
+  public SkipList<Integer, Integer> setAll() {
+    list.setAll(entryBatches.get(next()));
+    return list;
+  } // setAll()
+
+  @Benchmark
+  public int getEach() {
+    int found = 0;
+    for (Integer key : keyBatches.get(next())) {
+      if (list.containsKey(key)) {
+        found++;
+      } // if
+    } // for
+    return found;
+  } // getEach()
+
+  @Benchmark
+  public int getAll() {
+    return list.getAll(keyBatches.get(next())).size();
+  } // getAll()
+
+} // class BatchBenchmark
@@ -0,0 +1,222 @@
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Key sets and access streams shared by the benchmarks.
+ */
+public class BenchmarkData {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The length of each precomputed access stream.  (A power of two, so
+   * that the benchmarks can wrap their cursors with a mask.)
+   */
+  static final int STREAM_LENGTH = 1 << 20;
+
+  /**
+   * The skew used for zipfian access streams.
+   */
+  static final double ZIPF_THETA = 0.99;
+
+  /**
+   * Seed for all of the generators, so that runs are comparable.
+   */
+  static final long SEED = 42;
+
+  // +--------------+------------------------------------------------
+  // | Enumerations |
+  // +--------------+
+
+  /**
+   * The kinds of keys we benchmark.
+   */
+  public enum KeyType {
+    INTEGER, STRING
+  } // enum KeyType
+
+  /**
+   * The ways in which we pick the keys for each operation.
+   */
+  public enum Distribution {
+    SEQUENTIAL, UNIFORM, ZIPFIAN
+  } // enum Distribution
+
+  /**
+   * The maps we benchmark.
+   */
+  public enum Implementation {
+    SKIPLIST, TREEMAP, CONCURRENT_SKIPLIST, LOCK_FREE_SKIPLIST, STAMPED_SKIPLIST,
+    SYNCHRONIZED_SKIPLIST
+  } // enum Implementation
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build the key with the given index.  Even indices are "present" keys
+   * and odd ones are guaranteed misses; both kinds sort in index order.
+   */
+  static Object key(KeyType type, int i) {
+    if (type == KeyType.INTEGER) {
+      return i;
+    } else {
+      return String.format("key%010d", i);
+    } // if/else
+  } // key(KeyType, int)
+
+  /**
+   * Build n present keys, in ascending order.
+   */
+  static Object[] presentKeys(KeyType type, int n) {
+    Object[] keys = new Object[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = key(type, 2 * i);
+    } // for
+    return keys;
+  } // presentKeys(KeyType, int)
+
+  /**
+   * Build n keys that are never present, in ascending order.
+   */
+  static Object[] missingKeys(KeyType type, int n) {
+    Object[] keys = new Object[n];
+    for (int i = 0; i < n; i++) {
+      keys[i] = key(type, 2 * i + 1);
+    } // for
+    return keys;
+  } // missingKeys(KeyType, int)
+
+  /**
+   * Get the comparator for a kind of key.
+   */
+  @SuppressWarnings("unchecked")
+  static Comparator<Object> comparator(KeyType type) {
+    if (type == KeyType.INTEGER) {
+      return (k1, k2) -> Integer.compare((Integer) k1, (Integer) k2);
+    } else {
+      return (k1, k2) -> ((Comparable<Object>) k1).compareTo(k2);
+    } // if/else
+  } // comparator(KeyType)
+
+  /**
+   * Build a stream of STREAM_LENGTH indices in [0, n) following the given
+   * distribution.
+   */
+  static int[] indices(Distribution dist, int n) {
+    int[] result = new int[STREAM_LENGTH];
+    Random rand = new Random(SEED);
+    if (dist == Distribution.SEQUENTIAL) {
+      for (int i = 0; i < STREAM_LENGTH; i++) {
+        result[i] = i % n;
+      } // for
+    } else if (dist == Distribution.UNIFORM) {
+      for (int i = 0; i < STREAM_LENGTH; i++) {
+        result[i] = rand.nextInt(n);
+      } // for
+    } else {
+      Zipf zipf = new Zipf(n, ZIPF_THETA, rand);
+      for (int i = 0; i < STREAM_LENGTH; i++) {
+        result[i] = zipf.next();
+      } // for
+    } // if/else
+    return result;
+  } // indices(Distribution, int)
+
+  /**
+   * Put the given keys into map, in the order given by dist.
+   */
+  static void fill(SimpleMap<Object, Object> map, Object[] keys, Distribution dist) {
+    if (dist == Distribution.SEQUENTIAL) {
+      for (Object key : keys) {
+        map.set(key, key);
+      } // for
+    } else {
+      Object[] shuffled = keys.clone();
+      Random rand = new Random(SEED);
+      for (int i = shuffled.length - 1; i > 0; i--) {
+        int j = rand.nextInt(i + 1);
+        Object tmp = shuffled[i];
+        shuffled[i] = shuffled[j];
+        shuffled[j] = tmp;
+      } // for
+      for (Object key : shuffled) {
+        map.set(key, key);
+      } // for
+    } // if/else
+  } // fill(SimpleMap, Object[], Distribution)
+
+  /**
+   * Create an empty map of the given kind.
+   */
+  static SimpleMap<Object, Object> newMap(Implementation impl, KeyType type, double prob) {
+    Comparator<Object> comparator = comparator(type);
+    switch (impl) {
+      case TREEMAP:
+        return new NavigableMapAdapter<Object, Object>(
+            new java.util.TreeMap<Object, Object>(comparator));
+      case CONCURRENT_SKIPLIST:
+        return new NavigableMapAdapter<Object, Object>(
+            new java.util.concurrent.ConcurrentSkipListMap<Object, Object>(comparator));
+      case LOCK_FREE_SKIPLIST:
+        return new ConcurrentSkipList<Object, Object>(comparator);
+      case STAMPED_SKIPLIST:
+        return new StampedSkipList<Object, Object>(comparator);
+      case SYNCHRONIZED_SKIPLIST:
+        return new SynchronizedSkipList<Object, Object>(new SkipList<Object, Object>(comparator));
+      default:
+        SkipList<Object, Object> list = new SkipList<Object, Object>(comparator);
+        list.setHeightGenerator(HeightGenerator.geometric(prob, SEED));
+        return list;
+    } // switch
+  } // newMap(Implementation, KeyType, double)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * A zipfian index generator (Gray et al., "Quickly generating
+   * billion-record synthetic databases").  Small indices are the hot ones.
+   */
+  static class Zipf {
+    final int n;
+    final double theta;
+    final double alpha;
+    final double zetan;
+    final double eta;
+    final Random rand;
+
+    Zipf(int n, double theta, Random rand) {
+      this.n = n;
+      this.theta = theta;
+      this.rand = rand;
+      this.zetan = zeta(n, theta);
+      this.alpha = 1.0 / (1.0 - theta);
+      this.eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+    } // Zipf(int, double, Random)
+
+    static double zeta(int n, double theta) {
+      double sum = 0;
+      for (int i = 1; i <= n; i++) {
+        sum += 1 / Math.pow(i, theta);
+      } // for
+      return sum;
+    } // zeta(int, double)
+
+    int next() {
+      double u = rand.nextDouble();
+      double uz = u * zetan;
+      if (uz < 1.0) {
+        return 0;
+      } else if (uz < 1.0 + Math.pow(0.5, theta)) {
+        return Math.min(1, n - 1);
+      } // if/else
+      return Math.min(n - 1, (int) (n * Math.pow(eta * u - eta + 1, alpha)));
+    } // next()
+  } // class Zipf
+
+} // class BenchmarkData
@@ -0,0 +1,87 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BlockedSkipList with several block sizes against SkipList (block size
+ * 1 below): random lookups, building from random keys, and a full scan.
+ * The keys are inserted in random order, so that the nodes of neither
+ * list are laid out in key order in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockedBenchmark {
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"1", "16", "32", "64"})
+  int blockSize;
+
+  SimpleMap<Integer, Integer> map;
+
+  Integer[] keys;
+
+  int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keys = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = rand.nextInt();
+    } // for
+    this.map = build();
+  } // setup()
+
+  SimpleMap<Integer, Integer> newMap() {
+    if (blockSize == 1) {
+      return new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    } // if
+    return new BlockedSkipList<Integer, Integer>((i, j) -> Integer.compare(i, j), blockSize);
+  } // newMap()
+
+  SimpleMap<Integer, Integer> build() {
+    SimpleMap<Integer, Integer> result = newMap();
+    for (int i = 0; i < size; i++) {
+      result.set(keys[i], i);
+    } // for
+    return result;
+  } // build()
+
+  @Benchmark
+  public boolean containsKey() {
+    return map.containsKey(keys[cursor++ % size]);
+  } // containsKey()
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SimpleMap<Integer, Integer> insert() {
+    return build();
+  } // insert()
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public long scan() {
+    long[] sum = {0};
+    map.forEach((key, value) -> sum[0] += value);
+    return sum[0];
+  } // scan()
+
+} // class BlockedBenchmark
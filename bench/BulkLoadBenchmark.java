@@ -0,0 +1,61 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a SkipList from sorted entries: fromSorted against one set per
+ * entry.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkLoadBenchmark {
+
+  @Param({"100000", "1000000", "10000000"})
+  int size;
+
+  /**
+   * The entries, sorted by key.
+   */
+  ArrayList<Map.Entry<Integer, Integer>> entries;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.entries = new ArrayList<Map.Entry<Integer, Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      entries.add(new AbstractMap.SimpleImmutableEntry<Integer, Integer>(2 * i, i));
+    } // for
+  } // setup()
+
+  @Benchmark
+  public SkipList<Integer, Integer> fromSorted() {
+    return SkipList.fromSorted(entries.iterator(), (i, j) -> Integer.compare(i, j));
+  } // fromSorted()
+
+  @Benchmark
+  public SkipList<Integer, Integer> repeatedSet() {
+    SkipList<Integer, Integer> list =
+        new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (Map.Entry<Integer, Integer> entry : entries) {
+      list.set(entry.getKey(), entry.getValue());
+    } // for
+    return list;
+  } // repeatedSet()
+
+} // class BulkLoadBenchmark
@@ -0,0 +1,73 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady-state churn: every operation removes the oldest key and inserts a
+ * new one, so the list stays at size entries forever.  Run with
+ * -prof gc to confirm that the heap stays flat, and compare lookup with
+ * a freshly built list of the same size to confirm that searches stay
+ * logarithmic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChurnBenchmark {
+
+  @Param({"10000", "1000000"})
+  int size;
+
+  SkipList<Integer, Integer> list;
+
+  /**
+   * The oldest key in the list.
+   */
+  int oldest;
+
+  Random rand;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      list.set(i, i);
+    } // for
+    this.oldest = 0;
+    this.rand = new Random(BenchmarkData.SEED);
+  } // setup()
+
+  /**
+   * Evict the oldest key and insert a new one.
+   */
+  @Benchmark
+  public Integer churn() {
+    Integer value = list.remove(oldest);
+    list.set(oldest + size, oldest);
+    oldest++;
+    return value;
+  } // churn()
+
+  /**
+   * Look up a random live key in the churned list.
+   */
+  @Benchmark
+  public boolean lookupDuringChurn() {
+    churn();
+    return list.containsKey(oldest + rand.nextInt(size));
+  } // lookupDuringChurn()
+
+} // class ChurnBenchmark
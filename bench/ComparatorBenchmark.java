@@ -0,0 +1,76 @@
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of the comparator in get: the old toString default against
+ * the NaturalOrder comparators, for Integer and String keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComparatorBenchmark {
+
+  /**
+   * What SkipList() used to compare with.
+   */
+  static final Comparator<Object> TO_STRING = (k1, k2) -> k1.toString().compareTo(k2.toString());
+
+  @State(Scope.Thread)
+  public static class Lists {
+    @Param({"100000"})
+    int size;
+
+    @Param({"INTEGER", "STRING"})
+    BenchmarkData.KeyType keyType;
+
+    @Param({"toString", "comparable", "natural"})
+    String order;
+
+    SkipList<Object, Object> list;
+    Object[] keys;
+    int[] stream;
+    int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+      Class<Object> keyClass = (Class<Object>) ((keyType == BenchmarkData.KeyType.INTEGER)
+          ? (Class<?>) Integer.class : (Class<?>) String.class);
+      if (order.equals("toString")) {
+        this.list = new SkipList<Object, Object>(TO_STRING);
+      } else if (order.equals("comparable")) {
+        this.list = new SkipList<Object, Object>();
+      } else {
+        this.list = new SkipList<Object, Object>(keyClass);
+      } // if/else
+      this.list.setHeightGenerator(HeightGenerator.seeded(BenchmarkData.SEED));
+      this.keys = BenchmarkData.presentKeys(keyType, size);
+      BenchmarkData.fill(list, keys, BenchmarkData.Distribution.UNIFORM);
+      this.stream = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, size);
+    } // setup()
+  } // class Lists
+
+  /**
+   * One successful get, at a uniformly random key.
+   */
+  @Benchmark
+  public Object get(Lists state) {
+    int i = state.stream[state.next++ & (BenchmarkData.STREAM_LENGTH - 1)];
+    return state.list.get(state.keys[i]);
+  } // get(Lists)
+
+} // class ComparatorBenchmark
@@ -0,0 +1,93 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of a map shared by many threads.  Vary the thread count with
+ * JMH's -t option to see how each implementation scales, e.g.
+ *   for t in 1 2 4 8 16; do java -jar benchmarks.jar ConcurrentBenchmark -t $t; done
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"LOCK_FREE_SKIPLIST", "CONCURRENT_SKIPLIST"})
+  BenchmarkData.Implementation impl;
+
+  /**
+   * Percentage of operations that are writes (half set, half remove).
+   */
+  @Param({"0", "10", "50"})
+  int writePercent;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The shared map.  Holds about half of the 2 * size candidate keys.
+   */
+  SimpleMap<Object, Object> map;
+
+  /**
+   * The candidate keys.
+   */
+  Object[] keys;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.keys = BenchmarkData.presentKeys(BenchmarkData.KeyType.INTEGER, 2 * size);
+    this.map = BenchmarkData.newMap(impl, BenchmarkData.KeyType.INTEGER, 0.5);
+    for (int i = 0; i < keys.length; i += 2) {
+      map.set(keys[i], keys[i]);
+    } // for
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * One random operation: a containsKey, set or remove.
+   */
+  @Benchmark
+  public Object mixed() {
+    ThreadLocalRandom rand = ThreadLocalRandom.current();
+    Object key = keys[rand.nextInt(keys.length)];
+    int op = rand.nextInt(200);
+    if (op < writePercent) {
+      return map.set(key, key);
+    } else if (op < 2 * writePercent) {
+      return map.remove(key);
+    } else {
+      return map.containsKey(key);
+    } // if/else
+  } // mixed()
+
+} // class ConcurrentBenchmark
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Write throughput of a DurableSkipList when every write is synced, when
+ * concurrent writers share syncs, and when writes are committed in
+ * batches; and the time to recover a list from its snapshot and log.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DurableBenchmark {
+
+  static DurableSkipList<Long, Long> open(Path dir, boolean sync) throws IOException {
+    return new DurableSkipList<Long, Long>(dir, Serializer.LONG, Serializer.LONG,
+        (i, j) -> Long.compare(i, j), sync);
+  } // open(Path, boolean)
+
+  static void delete(Path dir) throws IOException {
+    ArrayList<Path> files = new ArrayList<Path>();
+    Files.list(dir).forEach(files::add);
+    for (Path file : files) {
+      Files.delete(file);
+    } // for
+    Files.delete(dir);
+  } // delete(Path)
+
+  @State(Scope.Benchmark)
+  public static class Writes {
+    @Param({"1", "64"})
+    int batch;
+
+    Path dir;
+    DurableSkipList<Long, Long> list;
+    long next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      this.dir = Files.createTempDirectory("durable");
+      this.list = open(dir, batch == 1);
+    } // setup()
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      list.close();
+      delete(dir);
+    } // tearDown()
+  } // class Writes
+
+  /**
+   * One thread; syncs every write when batch is 1, otherwise commits
+   * every batch writes.  Reported per write.
+   */
+  @Benchmark
+  public void write(Writes state) {
+    long key;
+    synchronized (state) {
+      key = state.next++;
+    } // synchronized
+    state.list.set(key, key);
+    if ((state.batch > 1) && (key % state.batch == state.batch - 1)) {
+      state.list.commit();
+    } // if
+  } // write(Writes)
+
+  /**
+   * Eight threads all syncing every write, so that group commit can fold
+   * their fsyncs together.  Run with -p batch=1.
+   */
+  @Benchmark
+  @Threads(8)
+  public void groupWrite(Writes state) {
+    write(state);
+  } // groupWrite(Writes)
+
+  @State(Scope.Benchmark)
+  public static class Recovery {
+    @Param({"100000", "1000000"})
+    int size;
+
+    Path dir;
+
+    /**
+     * Snapshot the first half of the keys and leave the rest (plus
+     * overwrites of every tenth key) in the log.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      this.dir = Files.createTempDirectory("durable");
+      try (DurableSkipList<Long, Long> list = open(dir, false)) {
+        for (long i = 0; i < size / 2; i++) {
+          list.set(i, i);
+        } // for
+        list.snapshot();
+        for (long i = size / 2; i < size; i++) {
+          list.set(i, i);
+        } // for
+        for (long i = 0; i < size; i += 10) {
+          list.set(i, -i);
+        } // for
+      } // try
+    } // setup()
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      delete(dir);
+    } // tearDown()
+  } // class Recovery
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int recover(Recovery state) throws IOException {
+    DurableSkipList<Long, Long> list = open(state.dir, false);
+    int size = list.size();
+    list.close();
+    return size;
+  } // recover(Recovery)
+
+} // class DurableBenchmark
@@ -0,0 +1,123 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SkipList with and without finger search, on key streams with different
+ * amounts of locality.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FingerSearchBenchmark {
+
+  /**
+   * How the keys in a stream relate to each other.
+   */
+  public enum Stream {
+    /** Each key is one more than the last. */
+    SEQUENTIAL,
+    /** Each key is within a few dozen of the last, mostly ascending. */
+    NEAR_SEQUENTIAL,
+    /** Keys are independent. */
+    RANDOM
+  } // enum Stream
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"SEQUENTIAL", "NEAR_SEQUENTIAL", "RANDOM"})
+  Stream stream;
+
+  @Param({"false", "true"})
+  boolean finger;
+
+  /**
+   * A list holding the keys 0 .. size-1.
+   */
+  SkipList<Integer, Integer> list;
+
+  /**
+   * The keys to look up, in order.
+   */
+  Integer[] keys;
+
+  /**
+   * Where we are in keys.
+   */
+  int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.keys = keys(stream, size, BenchmarkData.STREAM_LENGTH);
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      list.set(i, i);
+    } // for
+    list.setFingerSearch(finger);
+  } // setup()
+
+  /**
+   * Build a stream of n keys in [0, range).
+   */
+  static Integer[] keys(Stream stream, int range, int n) {
+    Integer[] result = new Integer[n];
+    Random rand = new Random(BenchmarkData.SEED);
+    int key = 0;
+    for (int i = 0; i < n; i++) {
+      switch (stream) {
+        case SEQUENTIAL:
+          key = i % range;
+          break;
+        case NEAR_SEQUENTIAL:
+          key = Math.floorMod(key + rand.nextInt(48) - 16, range);
+          break;
+        default:
+          key = rand.nextInt(range);
+      } // switch
+      result[i] = key;
+    } // for
+    return result;
+  } // keys(Stream, int, int)
+
+  @Benchmark
+  public boolean containsKey() {
+    return list.containsKey(keys[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)]);
+  } // containsKey()
+
+  @Benchmark
+  public Integer get() {
+    return list.get(keys[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)]);
+  } // get()
+
+  /**
+   * Build a list of size keys from the stream, from scratch.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SkipList<Integer, Integer> build() {
+    SkipList<Integer, Integer> fresh =
+        new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    fresh.setFingerSearch(finger);
+    for (int i = 0; i < size; i++) {
+      fresh.set(keys[i], keys[i]);
+    } // for
+    return fresh;
+  } // build()
+
+} // class FingerSearchBenchmark
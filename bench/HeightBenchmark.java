@@ -0,0 +1,103 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of picking node heights: the old loop of nextDouble() calls on
+ * one shared java.util.Random, against the HeightGenerators, on one
+ * thread and on several.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeightBenchmark {
+
+  /**
+   * The generator the SkipLists used to share.
+   */
+  static final Random SHARED = new Random(BenchmarkData.SEED);
+
+  @State(Scope.Thread)
+  public static class Generators {
+    @Param({"0.5", "0.25"})
+    double prob;
+
+    HeightGenerator geometric;
+    HeightGenerator seeded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      this.geometric = HeightGenerator.geometric(prob);
+      this.seeded = HeightGenerator.geometric(prob, BenchmarkData.SEED);
+    } // setup()
+  } // class Generators
+
+  /**
+   * One coin flip per level, each a CAS on the shared seed.
+   */
+  static int sharedRandom(double prob) {
+    int result = 1;
+    while (SHARED.nextDouble() < prob) {
+      result = result + 1;
+    } // while
+    return result;
+  } // sharedRandom(double)
+
+  @Benchmark
+  public int sharedRandom(Generators state) {
+    return sharedRandom(state.prob);
+  } // sharedRandom(Generators)
+
+  @Benchmark
+  public int generator(Generators state) {
+    return state.geometric.nextHeight(32);
+  } // generator(Generators)
+
+  @Benchmark
+  public int seeded(Generators state) {
+    return state.seeded.nextHeight(32);
+  } // seeded(Generators)
+
+  @Benchmark
+  @Threads(4)
+  public int sharedRandomContended(Generators state) {
+    return sharedRandom(state.prob);
+  } // sharedRandomContended(Generators)
+
+  @Benchmark
+  @Threads(4)
+  public int generatorContended(Generators state) {
+    return state.geometric.nextHeight(32);
+  } // generatorContended(Generators)
+
+  /**
+   * Building a whole list, where the height is one part of each insert.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SkipList<Integer, Integer> build(Generators state) {
+    SkipList<Integer, Integer> list =
+        new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    list.setHeightGenerator(state.seeded);
+    for (int i = 0; i < 1000000; i++) {
+      list.set(i, i);
+    } // for
+    return list;
+  } // build(Generators)
+
+} // class HeightBenchmark
@@ -0,0 +1,82 @@
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Summing every value of a SkipList with external iteration (keys() and
+ * values()) and with internal iteration (forEach and forEachWhile).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int size;
+
+  SkipList<Integer, Integer> list;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      list.set(i, i);
+    } // for
+  } // setup()
+
+  @Benchmark
+  public long keysIterator() {
+    long sum = 0;
+    Iterator<Integer> it = list.keys();
+    while (it.hasNext()) {
+      sum += it.next();
+    } // while
+    return sum;
+  } // keysIterator()
+
+  @Benchmark
+  public long valuesIterator() {
+    long sum = 0;
+    Iterator<Integer> it = list.values();
+    while (it.hasNext()) {
+      sum += it.next();
+    } // while
+    return sum;
+  } // valuesIterator()
+
+  @Benchmark
+  public long forEach() {
+    long[] sum = {0};
+    list.forEach((key, value) -> sum[0] += value);
+    return sum[0];
+  } // forEach()
+
+  /**
+   * Sum the first half of the values, stopping early.
+   */
+  @Benchmark
+  public long forEachWhileHalf() {
+    long[] sum = {0};
+    int stop = size / 2;
+    list.forEachWhile((key, value) -> {
+      sum[0] += value;
+      return key < stop;
+    });
+    return sum[0];
+  } // forEachWhileHalf()
+
+} // class IterationBenchmark
@@ -0,0 +1,99 @@
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Combining two lists into a new one: set every entry of both, against
+ * merge and parallelMerge.  The second list is size / ratio entries, and
+ * about a tenth of its keys are also in the first.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class MergeBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"1000000"})
+  int size;
+
+  @Param({"1", "10"})
+  int ratio;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  SkipList<Object, Object> a;
+  SkipList<Object, Object> b;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.a = newList();
+    this.b = newList();
+    Object[] keys = BenchmarkData.presentKeys(BenchmarkData.KeyType.INTEGER, 2 * size);
+    int[] picks = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, keys.length);
+    for (int i = 0; i < size; i++) {
+      a.set(keys[2 * i], keys[2 * i]);
+    } // for
+    for (int i = 0; i < size / ratio; i++) {
+      // odd keys are only in b; every tenth key is an even one, shared with a
+      int pick = picks[i % picks.length];
+      int index = (i % 10 == 0) ? (pick & ~1) : (pick | 1);
+      b.set(keys[index], keys[index]);
+    } // for
+  } // setup()
+
+  SkipList<Object, Object> newList() {
+    SkipList<Object, Object> list =
+        new SkipList<Object, Object>(BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+    list.setHeightGenerator(HeightGenerator.seeded(BenchmarkData.SEED));
+    return list;
+  } // newList()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * What we did before: copy a with set, then set each of b over it (so
+   * b's value wins, as in the merges below).
+   */
+  @Benchmark
+  public SkipList<Object, Object> setLoop() {
+    SkipList<Object, Object> result = newList();
+    a.forEach((key, value) -> result.set(key, value));
+    b.forEach((key, value) -> result.set(key, value));
+    return result;
+  } // setLoop()
+
+  @Benchmark
+  public SkipList<Object, Object> merge() {
+    return SkipList.merge(a, b, (va, vb) -> vb);
+  } // merge()
+
+  @Benchmark
+  public SkipList<Object, Object> parallelMerge() {
+    return SkipList.parallelMerge(a, b, (va, vb) -> vb);
+  } // parallelMerge()
+
+} // class MergeBenchmark
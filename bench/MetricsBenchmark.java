@@ -0,0 +1,86 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What metrics cost: lookups and inserts with metrics never enabled,
+ * enabled, and enabled and then disabled again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+  /**
+   * Whether metrics are on during the measurement.
+   */
+  public enum Metrics {
+    /** Never enabled. */
+    NEVER,
+    /** Enabled throughout. */
+    ON,
+    /** Enabled during setup, then disabled. */
+    OFF_AGAIN
+  } // enum Metrics
+
+  @Param({"1000000"})
+  int size;
+
+  @Param({"NEVER", "ON", "OFF_AGAIN"})
+  Metrics metrics;
+
+  SkipList<Integer, Integer> list;
+
+  Integer[] keys;
+
+  int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    if (metrics != Metrics.NEVER) {
+      list.enableMetrics();
+    } // if
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keys = new Integer[BenchmarkData.STREAM_LENGTH];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = rand.nextInt(2 * size);
+    } // for
+    for (int i = 0; i < size; i++) {
+      list.set(keys[i], i);
+    } // for
+    if (metrics == Metrics.OFF_AGAIN) {
+      list.disableMetrics();
+    } // if
+  } // setup()
+
+  @Benchmark
+  public boolean containsKey() {
+    return list.containsKey(keys[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)]);
+  } // containsKey()
+
+  /**
+   * Overwrite or insert, then remove again, so the size stays put.
+   */
+  @Benchmark
+  public Integer setRemove() {
+    Integer key = keys[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)];
+    list.set(key, key);
+    return list.remove(key);
+  } // setRemove()
+
+} // class MetricsBenchmark
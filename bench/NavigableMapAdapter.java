@@ -0,0 +1,85 @@
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.function.BiConsumer;
+
+/**
+ * A SimpleMap view of a java.util.NavigableMap, so that the JDK maps can
+ * run the same benchmark workloads as SkipList.
+ */
+public class NavigableMapAdapter<K, V> implements SimpleMap<K, V> {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying map.
+   */
+  final NavigableMap<K, V> map;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Wrap map.
+   */
+  public NavigableMapAdapter(NavigableMap<K, V> map) {
+    this.map = map;
+  } // NavigableMapAdapter(NavigableMap<K,V>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return map.put(key, value);
+  } // set(K,V)
+
+  @Override
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    V value = map.get(key);
+    if (value == null) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return value;
+  } // get(K)
+
+  @Override
+  public int size() {
+    return map.size();
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    return map.containsKey(key);
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    return map.remove(key);
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return map.keySet().iterator();
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return map.values().iterator();
+  } // values()
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    map.forEach(action);
+  } // forEach(BiConsumer)
+
+} // class NavigableMapAdapter<K,V>
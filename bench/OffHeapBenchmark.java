@@ -0,0 +1,79 @@
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OffHeapSkipList against SkipList on long keys and values.  Run with
+ * -prof gc to compare collection counts and times: the off-heap list
+ * should keep them flat as size grows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=16g"})
+@State(Scope.Thread)
+public class OffHeapBenchmark {
+
+  @Param({"1000000", "10000000"})
+  int size;
+
+  @Param({"true", "false"})
+  boolean offHeap;
+
+  SimpleMap<Long, Long> map;
+
+  int[] stream;
+
+  int cursor;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    if (offHeap) {
+      this.map = new OffHeapSkipList<Long, Long>(Serializer.LONG, Serializer.LONG, Long.class);
+    } else {
+      this.map = new SkipList<Long, Long>(Long.class);
+    } // if/else
+    for (long i = 0; i < size; i++) {
+      map.set(2 * i, i);
+    } // for
+    this.stream = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, size);
+  } // setup()
+
+  long nextKey() {
+    return 2L * stream[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)];
+  } // nextKey()
+
+  @Benchmark
+  public Long get() {
+    return map.get(nextKey());
+  } // get()
+
+  @Benchmark
+  public Long overwrite() {
+    long key = nextKey();
+    return map.set(key, key);
+  } // overwrite()
+
+  /**
+   * Remove a key and put it back, so the map stays the same size.
+   */
+  @Benchmark
+  public Long removeAndReinsert() {
+    long key = nextKey();
+    Long value = map.remove(key);
+    map.set(key, value);
+    return value;
+  } // removeAndReinsert()
+
+} // class OffHeapBenchmark
@@ -0,0 +1,92 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building a list from unsorted pairs: one set per pair on one thread,
+ * setAll, and the fork-join fromUnsorted.  fromUnsorted runs in the
+ * common pool, so vary its size to see how it scales with cores, e.g.
+ *   for p in 1 2 4 8; do
+ *     java -Djava.util.concurrent.ForkJoinPool.common.parallelism=$p \
+ *         -jar benchmarks.jar ParallelBuildBenchmark; done
+ * (JMH passes the property on to the forked JVM.)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class ParallelBuildBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"1000000", "10000000"})
+  int size;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The pairs, in random order.
+   */
+  ArrayList<Map.Entry<Object, Object>> entries;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    int[] order = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, size);
+    this.entries = new ArrayList<Map.Entry<Object, Object>>(size);
+    for (int i = 0; i < size; i++) {
+      Object key = BenchmarkData.key(BenchmarkData.KeyType.INTEGER, order[i % order.length] + i);
+      entries.add(new AbstractMap.SimpleImmutableEntry<Object, Object>(key, key));
+    } // for
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  @Benchmark
+  public SkipList<Object, Object> set() {
+    SkipList<Object, Object> list =
+        new SkipList<Object, Object>(BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+    for (Map.Entry<Object, Object> entry : entries) {
+      list.set(entry.getKey(), entry.getValue());
+    } // for
+    return list;
+  } // set()
+
+  @Benchmark
+  public SkipList<Object, Object> setAll() {
+    SkipList<Object, Object> list =
+        new SkipList<Object, Object>(BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+    list.setAll(entries);
+    return list;
+  } // setAll()
+
+  @Benchmark
+  public SkipList<Object, Object> fromUnsorted() {
+    return SkipList.fromUnsorted(entries, BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+  } // fromUnsorted()
+
+} // class ParallelBuildBenchmark
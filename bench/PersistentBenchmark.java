@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reopening a PersistentSkipList, against rebuilding the same entries
+ * with set.  Reopen time should not depend on size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentBenchmark {
+
+  @Param({"100000", "1000000", "10000000"})
+  int size;
+
+  Path file;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.file = Files.createTempFile("skiplist", ".dat");
+    try (PersistentSkipList<Long, Long> list = open()) {
+      for (long i = 0; i < size; i++) {
+        list.set(i, i);
+      } // for
+    } // try
+  } // setup()
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.delete(file);
+    Files.deleteIfExists(file.resolveSibling(file.getFileName() + PersistentSkipList.UNDO_SUFFIX));
+  } // tearDown()
+
+  PersistentSkipList<Long, Long> open() throws IOException {
+    return PersistentSkipList.open(file, Serializer.LONG, Serializer.LONG,
+        (i, j) -> Long.compare(i, j));
+  } // open()
+
+  /**
+   * Reopen the file and read the largest key.
+   */
+  @Benchmark
+  public Long reopen() throws IOException {
+    try (PersistentSkipList<Long, Long> list = open()) {
+      return list.get((long) size - 1);
+    } // try
+  } // reopen()
+
+  /**
+   * Rebuild the list the slow way, for comparison.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SkipList<Long, Long> rebuild() {
+    SkipList<Long, Long> list = new SkipList<Long, Long>((i, j) -> Long.compare(i, j));
+    for (long i = 0; i < size; i++) {
+      list.set(i, i);
+    } // for
+    return list;
+  } // rebuild()
+
+} // class PersistentBenchmark
@@ -0,0 +1,90 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * LongSkipList against SkipList<Long, Long> with a comparator, on the
+ * same long keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  int size;
+
+  /**
+   * The keys in both lists.
+   */
+  long[] keys;
+
+  /**
+   * The order in which we probe the keys.
+   */
+  int[] stream;
+
+  /**
+   * Where we are in stream.
+   */
+  int cursor;
+
+  LongSkipList<Long> primitive;
+
+  SkipList<Long, Long> boxed;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keys = new long[size];
+    this.primitive = new LongSkipList<Long>();
+    this.boxed = new SkipList<Long, Long>((i, j) -> Long.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      keys[i] = rand.nextLong();
+      primitive.set(keys[i], keys[i]);
+      boxed.set(keys[i], keys[i]);
+    } // for
+    this.stream = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, size);
+  } // setup()
+
+  long nextKey() {
+    return keys[stream[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)]];
+  } // nextKey()
+
+  @Benchmark
+  public Long getPrimitive() {
+    return primitive.get(nextKey());
+  } // getPrimitive()
+
+  @Benchmark
+  public Long getBoxed() {
+    return boxed.get(nextKey());
+  } // getBoxed()
+
+  @Benchmark
+  public Long setPrimitive() {
+    long key = nextKey();
+    return primitive.set(key, null);
+  } // setPrimitive()
+
+  @Benchmark
+  public Long setBoxed() {
+    long key = nextKey();
+    return boxed.set(key, null);
+  } // setBoxed()
+
+} // class PrimitiveBenchmark
@@ -0,0 +1,81 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Scanning the keys in [lo, lo + width) with a sub-map view, against
+ * filtering a full keys() scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RangeScanBenchmark {
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"10", "1000"})
+  int width;
+
+  SkipList<Integer, Integer> list;
+
+  Random rand;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> Integer.compare(i, j));
+    for (int i = 0; i < size; i++) {
+      list.set(i, i);
+    } // for
+    this.rand = new Random(BenchmarkData.SEED);
+  } // setup()
+
+  @Benchmark
+  public void subMap(Blackhole bh) {
+    int lo = rand.nextInt(size - width);
+    Iterator<Integer> it = list.subMap(lo, lo + width).keys();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    } // while
+  } // subMap(Blackhole)
+
+  @Benchmark
+  public void descendingSubMap(Blackhole bh) {
+    int lo = rand.nextInt(size - width);
+    Iterator<Integer> it = list.subMap(lo, lo + width).descending().keys();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    } // while
+  } // descendingSubMap(Blackhole)
+
+  @Benchmark
+  public void filteredScan(Blackhole bh) {
+    int lo = rand.nextInt(size - width);
+    Iterator<Integer> it = list.keys();
+    while (it.hasNext()) {
+      Integer key = it.next();
+      if (key >= lo + width) {
+        break;
+      } else if (key >= lo) {
+        bh.consume(key);
+      } // if/else
+    } // while
+  } // filteredScan(Blackhole)
+
+} // class RangeScanBenchmark
@@ -0,0 +1,119 @@
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Positional access with spans against walking level 0, and what keeping
+ * the spans up to date costs set and remove: compare insert and churn
+ * with and without indexed.  (rank and select index the list on their
+ * first call, so for them indexed only matters during warmup.)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RankBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"10000", "1000000"})
+  int size;
+
+  @Param({"false", "true"})
+  boolean indexed;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  SkipList<Object, Object> list;
+  Object[] keys;
+  int[] stream;
+  int next;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.keys = BenchmarkData.presentKeys(BenchmarkData.KeyType.INTEGER, size);
+    this.list = new SkipList<Object, Object>(BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+    this.list.setHeightGenerator(HeightGenerator.seeded(BenchmarkData.SEED));
+    this.list.setIndexed(indexed);
+    BenchmarkData.fill(list, keys, BenchmarkData.Distribution.UNIFORM);
+    this.stream = BenchmarkData.indices(BenchmarkData.Distribution.UNIFORM, size);
+  } // setup()
+
+  int nextIndex() {
+    return stream[next++ & (BenchmarkData.STREAM_LENGTH - 1)];
+  } // nextIndex()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  @Benchmark
+  public int rank() {
+    return list.rank(keys[nextIndex()]);
+  } // rank()
+
+  @Benchmark
+  public Object select() {
+    return list.select(nextIndex());
+  } // select()
+
+  /**
+   * select the way it had to be done before spans.
+   */
+  @Benchmark
+  public Object walk() {
+    int index = nextIndex();
+    Iterator<Object> it = list.keys();
+    for (int i = 0; i < index; i++) {
+      it.next();
+    } // for
+    return it.next();
+  } // walk()
+
+  /**
+   * Remove a key and put it back: two span updates per operation.
+   */
+  @Benchmark
+  public Object churn() {
+    Object key = keys[nextIndex()];
+    list.remove(key);
+    return list.set(key, key);
+  } // churn()
+
+  /**
+   * Build a list of size keys, in random order.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SkipList<Object, Object> insert() {
+    SkipList<Object, Object> fresh =
+        new SkipList<Object, Object>(BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER));
+    fresh.setHeightGenerator(HeightGenerator.seeded(BenchmarkData.SEED));
+    fresh.setIndexed(indexed);
+    BenchmarkData.fill(fresh, keys, BenchmarkData.Distribution.UNIFORM);
+    return fresh;
+  } // insert()
+
+} // class RankBenchmark
@@ -0,0 +1,99 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of a write-heavy workload (by default all set or remove,
+ * at random keys) on a ShardedSkipList, by shard count.  With one shard
+ * every write takes the same lock, as in StampedSkipList; with more,
+ * writes spread over the shards' locks and fronts.  Scaling needs at
+ * least as many cores as threads; vary the thread count with -t, as for
+ * ConcurrentBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardedBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"1", "2", "4", "8", "16"})
+  int shards;
+
+  /**
+   * Percentage of operations that are writes (half set, half remove).
+   */
+  @Param({"100", "50"})
+  int writePercent;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The shared map.  Holds about half of the 2 * size candidate keys.
+   */
+  ShardedSkipList<Object, Object> map;
+
+  /**
+   * The candidate keys.
+   */
+  Object[] keys;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.keys = BenchmarkData.presentKeys(BenchmarkData.KeyType.INTEGER, 2 * size);
+    this.map = new ShardedSkipList<Object, Object>(
+        BenchmarkData.comparator(BenchmarkData.KeyType.INTEGER), shards);
+    for (int i = 0; i < keys.length; i += 2) {
+      map.set(keys[i], keys[i]);
+    } // for
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * One random operation: a set, remove or containsKey.
+   */
+  @Benchmark
+  public Object writeHeavy() {
+    ThreadLocalRandom rand = ThreadLocalRandom.current();
+    Object key = keys[rand.nextInt(keys.length)];
+    int op = rand.nextInt(200);
+    if (op < writePercent) {
+      return map.set(key, key);
+    } else if (op < 2 * writePercent) {
+      return map.remove(key);
+    } else {
+      return map.containsKey(key);
+    } // if/else
+  } // writeHeavy()
+
+} // class ShardedBenchmark
@@ -0,0 +1,183 @@
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the SimpleMap operations, run against SkipList and
+ * against TreeMap and ConcurrentSkipListMap as baselines.
+ *
+ * Run with, e.g.,
+ *   java -jar benchmarks.jar SkipListBenchmark -p size=1000000 -p impl=SKIPLIST
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SkipListBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  int size;
+
+  @Param({"INTEGER", "STRING"})
+  BenchmarkData.KeyType keyType;
+
+  @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+  BenchmarkData.Distribution distribution;
+
+  @Param({"0.25", "0.5"})
+  double prob;
+
+  @Param({"SKIPLIST", "TREEMAP", "CONCURRENT_SKIPLIST"})
+  BenchmarkData.Implementation impl;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * A map holding size present keys.
+   */
+  SimpleMap<Object, Object> map;
+
+  /**
+   * The keys in map, in ascending order.
+   */
+  Object[] present;
+
+  /**
+   * Keys that are not in map, in ascending order.
+   */
+  Object[] missing;
+
+  /**
+   * The order in which we visit keys.
+   */
+  int[] stream;
+
+  /**
+   * Where we are in stream.
+   */
+  int cursor;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.present = BenchmarkData.presentKeys(keyType, size);
+    this.missing = BenchmarkData.missingKeys(keyType, size);
+    this.stream = BenchmarkData.indices(distribution, size);
+    this.map = BenchmarkData.newMap(impl, keyType, prob);
+    BenchmarkData.fill(map, present, distribution);
+    this.cursor = 0;
+  } // setup()
+
+  /**
+   * Get the index of the next key to use.
+   */
+  int nextIndex() {
+    return stream[cursor++ & (BenchmarkData.STREAM_LENGTH - 1)];
+  } // nextIndex()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * Build a map of size entries from scratch.  (Divide by size for the
+   * per-insert cost.)
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public SimpleMap<Object, Object> setInsert() {
+    SimpleMap<Object, Object> fresh = BenchmarkData.newMap(impl, keyType, prob);
+    BenchmarkData.fill(fresh, present, distribution);
+    return fresh;
+  } // setInsert()
+
+  @Benchmark
+  public Object setOverwrite() {
+    Object key = present[nextIndex()];
+    return map.set(key, key);
+  } // setOverwrite()
+
+  @Benchmark
+  public Object getHit() {
+    return map.get(present[nextIndex()]);
+  } // getHit()
+
+  /**
+   * get on an absent key.  SimpleMap reports misses by throwing, so this
+   * includes the cost of the exception.
+   */
+  @Benchmark
+  public Object getMiss() {
+    try {
+      return map.get(missing[nextIndex()]);
+    } catch (IndexOutOfBoundsException e) {
+      return e;
+    } // try/catch
+  } // getMiss()
+
+  @Benchmark
+  public boolean containsKeyHit() {
+    return map.containsKey(present[nextIndex()]);
+  } // containsKeyHit()
+
+  @Benchmark
+  public boolean containsKeyMiss() {
+    return map.containsKey(missing[nextIndex()]);
+  } // containsKeyMiss()
+
+  /**
+   * Remove a key and put it back, so the map stays the same size.
+   */
+  @Benchmark
+  public Object removeAndReinsert() {
+    Object key = present[nextIndex()];
+    Object value = map.remove(key);
+    map.set(key, key);
+    return value;
+  } // removeAndReinsert()
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void iterateKeys(Blackhole bh) {
+    Iterator<Object> it = map.keys();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    } // while
+  } // iterateKeys(Blackhole)
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void iterateValues(Blackhole bh) {
+    Iterator<Object> it = map.values();
+    while (it.hasNext()) {
+      bh.consume(it.next());
+    } // while
+  } // iterateValues(Blackhole)
+
+} // class SkipListBenchmark
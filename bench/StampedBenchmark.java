@@ -0,0 +1,96 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of a read-mostly workload (95% get, 5% set or remove) on a
+ * shared SkipList: StampedSkipList's optimistic reads against one global
+ * monitor, as Collections.synchronizedMap would do.  Vary the thread
+ * count with -t, as for ConcurrentBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StampedBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"STAMPED_SKIPLIST", "SYNCHRONIZED_SKIPLIST"})
+  BenchmarkData.Implementation impl;
+
+  /**
+   * Percentage of operations that are writes (half set, half remove).
+   */
+  @Param({"5"})
+  int writePercent;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The shared map.  Holds about half of the 2 * size candidate keys.
+   */
+  SimpleMap<Object, Object> map;
+
+  /**
+   * The candidate keys.
+   */
+  Object[] keys;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.keys = BenchmarkData.presentKeys(BenchmarkData.KeyType.INTEGER, 2 * size);
+    this.map = BenchmarkData.newMap(impl, BenchmarkData.KeyType.INTEGER, 0.5);
+    for (int i = 0; i < keys.length; i += 2) {
+      map.set(keys[i], keys[i]);
+    } // for
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  /**
+   * One random operation: a containsKey, set or remove.
+   */
+  @Benchmark
+  public Object readMostly() {
+    ThreadLocalRandom rand = ThreadLocalRandom.current();
+    Object key = keys[rand.nextInt(keys.length)];
+    int op = rand.nextInt(200);
+    if (op < writePercent) {
+      return map.set(key, key);
+    } else if (op < 2 * writePercent) {
+      return map.remove(key);
+    } else {
+      return map.containsKey(key);
+    } // if/else
+  } // readMostly()
+
+} // class StampedBenchmark
@@ -0,0 +1,100 @@
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Summing every value: a plain iterator against sequential and parallel
+ * streams over the spliterators.  The parallel stream uses the common
+ * fork-join pool, so it can only win with more than one core.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class StreamBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"10000000"})
+  int size;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  SkipList<Integer, Integer> list;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Iterator<Map.Entry<Integer, Integer>> entries = new Iterator<Map.Entry<Integer, Integer>>() {
+      int i = 0;
+
+      @Override
+      public boolean hasNext() {
+        return i < size;
+      } // hasNext()
+
+      @Override
+      public Map.Entry<Integer, Integer> next() {
+        Integer key = i++;
+        return new AbstractMap.SimpleImmutableEntry<Integer, Integer>(key, key);
+      } // next()
+    };
+    this.list = SkipList.fromSorted(entries, NaturalOrder.INTEGER);
+  } // setup()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  @Benchmark
+  public long iterator() {
+    long sum = 0;
+    Iterator<Integer> values = list.values();
+    while (values.hasNext()) {
+      sum += values.next();
+    } // while
+    return sum;
+  } // iterator()
+
+  @Benchmark
+  public long sequentialStream() {
+    return StreamSupport.stream(list.valueSpliterator(), false).mapToLong(Integer::longValue).sum();
+  } // sequentialStream()
+
+  @Benchmark
+  public long parallelStream() {
+    return StreamSupport.stream(list.valueSpliterator(), true).mapToLong(Integer::longValue).sum();
+  } // parallelStream()
+
+  /**
+   * The entry stream, which also builds an entry per node.
+   */
+  @Benchmark
+  public long parallelEntries() {
+    return list.parallelStream().mapToLong((e) -> e.getValue().longValue()).sum();
+  } // parallelEntries()
+
+} // class StreamBenchmark
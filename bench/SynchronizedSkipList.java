@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * A SkipList behind one monitor, in the style of
+ * Collections.synchronizedMap: every operation, reads included, holds
+ * the lock.  The baseline for StampedSkipList.
+ */
+public class SynchronizedSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying list.  Guarded by this.
+   */
+  final SkipList<K, V> list;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Wrap list, which nobody else may use afterwards.
+   */
+  public SynchronizedSkipList(SkipList<K, V> list) {
+    this.list = list;
+  } // SynchronizedSkipList(SkipList<K,V>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public synchronized V set(K key, V value) {
+    return list.set(key, value);
+  } // set(K, V)
+
+  @Override
+  public synchronized V get(K key) {
+    return list.get(key);
+  } // get(K)
+
+  @Override
+  public synchronized int size() {
+    return list.size();
+  } // size()
+
+  @Override
+  public synchronized boolean containsKey(K key) {
+    return list.containsKey(key);
+  } // containsKey(K)
+
+  @Override
+  public synchronized V remove(K key) {
+    return list.remove(key);
+  } // remove(K)
+
+  /**
+   * Iterate over a copy of the keys, taken under the lock.
+   */
+  @Override
+  public synchronized Iterator<K> keys() {
+    ArrayList<K> copy = new ArrayList<K>(list.size());
+    list.keys().forEachRemaining(copy::add);
+    return copy.iterator();
+  } // keys()
+
+  /**
+   * Iterate over a copy of the values, taken under the lock.
+   */
+  @Override
+  public synchronized Iterator<V> values() {
+    ArrayList<V> copy = new ArrayList<V>(list.size());
+    list.values().forEachRemaining(copy::add);
+    return copy.iterator();
+  } // values()
+
+  @Override
+  public synchronized void forEach(BiConsumer<? super K, ? super V> action) {
+    list.forEach(action);
+  } // forEach(BiConsumer)
+
+} // class SynchronizedSkipList<K,V>
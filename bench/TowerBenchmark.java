@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups through SkipList's array towers, and through towers built the
+ * old way, with an ArrayList of links per node.  Both are built by
+ * inserting the same keys in the same random order with the same seeded
+ * heights, so they have identical shapes and similar memory layouts, and
+ * the difference is the tower representation alone.  With spans, both
+ * kinds of node also get an int array of spans, built in one pass after
+ * the inserts (SkipList.setIndexed for the arrays), so that an indexed
+ * list is compared with nodes that carry the same information.  Setup
+ * also prints the heap each structure takes per entry, measured as the
+ * growth in used heap while building it (keys and values are allocated
+ * beforehand, so they are not counted).
+ *
+ * Run with, e.g.,
+ *   java -jar benchmarks.jar TowerBenchmark -p size=1000000
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class TowerBenchmark {
+
+  // +------------+--------------------------------------------------
+  // | Parameters |
+  // +------------+
+
+  @Param({"100000", "1000000"})
+  int size;
+
+  @Param({"ARRAY", "ARRAY_LIST"})
+  String towers;
+
+  @Param({"false", "true"})
+  boolean spans;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The list, when towers is ARRAY.
+   */
+  SkipList<Integer, Integer> list;
+
+  /**
+   * The front of each level, when towers is ARRAY_LIST.
+   */
+  ArrayList<ListNode> front;
+
+  /**
+   * The keys in the list, in random order.
+   */
+  Integer[] keys;
+
+  /**
+   * Where we are in keys.
+   */
+  int cursor;
+
+  // +-------+-------------------------------------------------------
+  // | Setup |
+  // +-------+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keys = new Integer[size];
+    Integer[] values = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = rand.nextInt();
+      values[i] = i;
+    } // for
+    HeightGenerator heights = HeightGenerator.seeded(BenchmarkData.SEED);
+    long before = usedHeap();
+    int entries;
+    if (towers.equals("ARRAY")) {
+      this.list = new SkipList<Integer, Integer>(Integer.class);
+      list.setHeightGenerator(heights);
+      for (int i = 0; i < size; i++) {
+        list.set(keys[i], values[i]);
+      } // for
+      list.setIndexed(spans);
+      entries = list.size();
+    } else {
+      this.front = new ArrayList<ListNode>();
+      entries = 0;
+      for (int i = 0; i < size; i++) {
+        entries += insert(keys[i], values[i], heights) ? 1 : 0;
+      } // for
+      if (spans) {
+        index();
+      } // if
+    } // if/else
+    System.out.printf("%n%s towers%s: %.1f bytes per entry%n", towers,
+        spans ? " with spans" : "", (double) (usedHeap() - before) / entries);
+  } // setup()
+
+  /**
+   * The heap in use, after collecting what we can.
+   */
+  static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 4; i++) {
+      System.gc();
+    } // for
+    return runtime.totalMemory() - runtime.freeMemory();
+  } // usedHeap()
+
+  /**
+   * Find the last node before key on each level of the ArrayList towers
+   * (null for the front), as SkipList.getNodes did before.
+   */
+  ListNode[] getNodes(Integer key) {
+    ListNode[] nodes = new ListNode[front.size()];
+    ListNode node = null;
+    for (int i = front.size() - 1; i >= 0; i--) {
+      ListNode next = (node == null) ? front.get(i) : node.next.get(i);
+      while ((next != null) && (next.key.compareTo(key) < 0)) {
+        node = next;
+        next = node.next.get(i);
+      } // while
+      nodes[i] = node;
+    } // for
+    return nodes;
+  } // getNodes(Integer)
+
+  /**
+   * Add key to the ArrayList towers, drawing heights as SkipList does.
+   * Returns false if key was already there (and only sets its value).
+   */
+  boolean insert(Integer key, Integer value, HeightGenerator heights) {
+    ListNode[] nodes = getNodes(key);
+    ListNode next = (nodes.length == 0) ? null
+        : (nodes[0] == null) ? front.get(0) : nodes[0].next.get(0);
+    if ((next != null) && next.key.equals(key)) {
+      next.value = value;
+      return false;
+    } // if
+    int h = heights.nextHeight(Math.max(front.size(), 1) + 1); // as SkipList.randomHeight
+    ListNode node = spans ? new SpanNode(key, value, h) : new ListNode(key, value, h);
+    for (int i = 0; i < h; i++) {
+      ListNode prev = (i < nodes.length) ? nodes[i] : null;
+      if (i >= front.size()) {
+        front.add(node);
+      } else if (prev == null) {
+        node.next.set(i, front.get(i));
+        front.set(i, node);
+      } else {
+        node.next.set(i, prev.next.get(i));
+        prev.next.set(i, node);
+      } // if/else
+    } // for
+    return true;
+  } // insert(Integer, Integer, HeightGenerator)
+
+  /**
+   * Give every node of the ArrayList towers its spans, as
+   * SkipList.setIndexed does.  (The front's spans are a few ints, so we
+   * leave them out.)
+   */
+  void index() {
+    SpanNode[] last = new SpanNode[front.size()];
+    int[] lastPos = new int[front.size()];
+    int pos = 0;
+    for (ListNode next = front.get(0); next != null; next = next.next.get(0)) {
+      SpanNode node = (SpanNode) next;
+      pos++;
+      node.span = new int[node.next.size()];
+      for (int i = 0; i < node.next.size(); i++) {
+        if (last[i] != null) {
+          last[i].span[i] = pos - lastPos[i];
+        } // if
+        last[i] = node;
+        lastPos[i] = pos;
+      } // for
+    } // for
+  } // index()
+
+  // +------------+--------------------------------------------------
+  // | Benchmarks |
+  // +------------+
+
+  @Benchmark
+  public boolean containsKey() {
+    Integer key = keys[cursor++ % size];
+    if (list != null) {
+      return list.containsKey(key);
+    } // if
+    ListNode node = null;
+    ListNode next = null;
+    for (int i = front.size() - 1; i >= 0; i--) {
+      next = (node == null) ? front.get(i) : node.next.get(i);
+      while ((next != null) && (next.key.compareTo(key) < 0)) {
+        node = next;
+        next = node.next.get(i);
+      } // while
+    } // for
+    return (next != null) && next.key.equals(key);
+  } // containsKey()
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * A node as SkipList had them before, with its links in an ArrayList.
+   */
+  static class ListNode {
+    final Integer key;
+    Integer value;
+    final ArrayList<ListNode> next;
+
+    ListNode(Integer key, Integer value, int height) {
+      this.key = key;
+      this.value = value;
+      this.next = new ArrayList<ListNode>(height);
+      for (int i = 0; i < height; i++) {
+        this.next.add(null);
+      } // for
+    } // ListNode(Integer, Integer, int)
+  } // class ListNode
+
+  /**
+   * A ListNode with room for spans, when spans is true.
+   */
+  static class SpanNode extends ListNode {
+    int[] span;
+
+    SpanNode(Integer key, Integer value, int height) {
+      super(key, value, height);
+    } // SpanNode(Integer, Integer, int)
+  } // class SpanNode
+
+} // class TowerBenchmark
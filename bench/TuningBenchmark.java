@@ -0,0 +1,104 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups in lists tuned for memory, balance and latency (and untuned).
+ * Setup prints the structure: links and estimated bytes per entry (with
+ * compressed references) and the number of levels.  The aux counters
+ * count comparisons and lookups; JMH sums them over the measurement
+ * iterations, so divide one by the other for comparisons per lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TuningBenchmark {
+
+  @Param({"100", "100000", "10000000"})
+  int size;
+
+  @Param({"NONE", "MEMORY", "BALANCED", "LATENCY"})
+  String tuning;
+
+  SkipList<Integer, Integer> list;
+
+  /**
+   * The keys in the list, in random order.
+   */
+  Integer[] keys;
+
+  /**
+   * Where we are in keys.
+   */
+  int cursor;
+
+  /**
+   * Comparisons made by the list so far.
+   */
+  long comparisons;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    this.list = new SkipList<Integer, Integer>((i, j) -> {
+      comparisons++;
+      return Integer.compare(i, j);
+    });
+    if (!tuning.equals("NONE")) {
+      list.setTuning(SkipList.Tuning.valueOf(tuning));
+    } // if
+    Random rand = new Random(BenchmarkData.SEED);
+    this.keys = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = rand.nextInt();
+      list.set(keys[i], i);
+    } // for
+    long links = 0;
+    long bytes = 0;
+    for (SLNode<Integer, Integer> node = list.front.get(0); node != null; node = node.next[0]) {
+      links += node.next.length;
+      // node: header, key, value, next, span, padding; next and (if the
+      // list is indexed) span arrays: header, length, one link or int per
+      // level, padding
+      int array = ((16 + 4 * node.next.length + 7) / 8) * 8;
+      bytes += 32 + ((node.span == null) ? array : 2 * array);
+    } // for
+    System.out.printf("%n%s: %.2f links and %.1f bytes per entry, %d levels%n", tuning,
+        (double) links / list.size(), (double) bytes / list.size(), list.highestLevel + 1);
+  } // setup()
+
+  /**
+   * Comparisons and lookups made in each iteration.  (JMH zeroes these
+   * before every iteration.)
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counts {
+    public long comparisons;
+    public long lookups;
+  } // class Counts
+
+  @Benchmark
+  public boolean containsKey(Counts counts) {
+    long before = comparisons;
+    boolean found = list.containsKey(keys[cursor++ % size]);
+    counts.comparisons += comparisons - before;
+    counts.lookups++;
+    return found;
+  } // containsKey(Counts)
+
+} // class TuningBenchmark
@@ -0,0 +1,521 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * A skip list whose nodes are blocks of up to blockSize entries, kept in
+ * sorted arrays.  The towers index blocks by their first keys; once a
+ * search reaches the right block it finishes with a binary search of the
+ * block's keys.  A scan touches one node per block instead of one per
+ * entry, and there are blockSize times fewer towers to keep.
+ *
+ * Invariants: every block holds at least one entry, all the keys of a
+ * block are smaller than the first key of the next block, and each level
+ * is ordered by first keys.  A full block splits in two when an insertion
+ * arrives; a block is unlinked only when its last entry is removed.
+ */
+public class BlockedSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of entries in each block, unless the client says otherwise.
+   */
+  static final int DEFAULT_BLOCK_SIZE = 32;
+
+  /**
+   * The initial height of the skip list.
+   */
+  static final int INITIAL_HEIGHT = 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The first block on each level.
+   */
+  SLBlock<K, V>[] front;
+
+  /**
+   * The comparator used to determine the ordering in the list.
+   */
+  final Comparator<? super K> comparator;
+
+  /**
+   * The largest number of entries in a block.
+   */
+  final int blockSize;
+
+  /**
+   * The number of values in the list.
+   */
+  int size;
+
+  /**
+   * The index of the highest level that holds any block.
+   */
+  int highestLevel;
+
+  /**
+   * Where the heights of new blocks come from.
+   */
+  HeightGenerator heights = HeightGenerator.DEFAULT;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, list with blocks of up to blockSize entries.
+   *
+   * @throws IllegalArgumentException if blockSize is less than 2.
+   */
+  @SuppressWarnings("unchecked")
+  public BlockedSkipList(Comparator<? super K> comparator, int blockSize) {
+    if (blockSize < 2) {
+      throw new IllegalArgumentException("block size must be at least 2: " + blockSize);
+    } // if
+    this.front = (SLBlock<K, V>[]) new SLBlock[INITIAL_HEIGHT];
+    this.comparator = comparator;
+    this.blockSize = blockSize;
+    this.size = 0;
+    this.highestLevel = 0;
+  } // BlockedSkipList(Comparator<K>, int)
+
+  /**
+   * Create a new, empty, list with blocks of the default size.
+   */
+  public BlockedSkipList(Comparator<? super K> comparator) {
+    this(comparator, DEFAULT_BLOCK_SIZE);
+  } // BlockedSkipList(Comparator<K>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+
+    SLBlock<K, V>[] nodes = this.getNodes(key);
+    SLBlock<K, V> block = this.blockFor(nodes, key);
+    if (block == null) {
+      block = front[0];
+      if (block == null) {
+        // the list is empty, so start the first block
+        block = newBlock();
+        link(block, nodes, null);
+      } // if
+    } // if
+
+    int i = block.find(key, comparator);
+    if (i >= 0) {
+      V tmp = block.value(i);
+      block.values[i] = value;
+      return tmp;
+    } // if key is already present
+
+    int pos = -(i + 1);
+    if (block.count == blockSize) {
+      // split, moving the upper half into a new block right after this one
+      SLBlock<K, V> right = newBlock();
+      int half = blockSize / 2;
+      right.count = block.count - half;
+      System.arraycopy(block.keys, half, right.keys, 0, right.count);
+      System.arraycopy(block.values, half, right.values, 0, right.count);
+      Arrays.fill(block.keys, half, block.count, null);
+      Arrays.fill(block.values, half, block.count, null);
+      block.count = half;
+      link(right, nodes, block);
+      if (pos > half) {
+        block = right;
+        pos -= half;
+      } // if
+    } // if the block is full
+
+    block.insert(pos, key, value);
+    this.size++;
+    return null;
+  } // set(K, V)
+
+  @Override
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    SLBlock<K, V> block = this.search(key);
+    int i = (block == null) ? -1 : block.find(key, comparator);
+    if (i < 0) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return block.value(i);
+  } // get(K)
+
+  @Override
+  public int size() {
+    return this.size;
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    SLBlock<K, V> block = this.search(key);
+    return (block != null) && (block.find(key, comparator) >= 0);
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    SLBlock<K, V>[] nodes = this.getNodes(key);
+    SLBlock<K, V> block = this.blockFor(nodes, key);
+    int i = (block == null) ? -1 : block.find(key, comparator);
+    if (i < 0) {
+      return null;
+    } // if key is not present
+
+    V value = block.value(i);
+    block.delete(i);
+    this.size--;
+    if (block.count == 0) {
+      // block held only key, so it is the block after nodes[0] and nodes
+      // are its predecessors
+      for (int level = 0; level < block.next.length; level++) {
+        if (nodes[level] == null) {
+          front[level] = block.next[level];
+        } else {
+          nodes[level].next[level] = block.next[level];
+        } // if/else
+      } // for
+      while ((highestLevel > 0) && (front[highestLevel] == null)) {
+        highestLevel--;
+      } // while
+    } // if the block is empty
+    return value;
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      Cursor<K, V> cursor = new Cursor<K, V>(front[0]);
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public K next() {
+        return cursor.advance().key(cursor.index);
+      } // next()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      Cursor<K, V> cursor = new Cursor<K, V>(front[0]);
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public V next() {
+        return cursor.advance().value(cursor.index);
+      } // next()
+    };
+  } // values()
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    for (SLBlock<K, V> block = front[0]; block != null; block = block.next[0]) {
+      for (int i = 0; i < block.count; i++) {
+        action.accept(block.key(i), block.value(i));
+      } // for
+    } // for
+  } // forEach(BiConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Choose how the heights of new blocks are picked.
+   */
+  public void setHeightGenerator(HeightGenerator heights) {
+    if (heights == null) {
+      throw new NullPointerException("null generator");
+    } // if
+    this.heights = heights;
+  } // setHeightGenerator(HeightGenerator)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make an empty block with a random height, growing front if it is
+   * taller than the list.
+   */
+  SLBlock<K, V> newBlock() {
+    int h = heights.nextHeight(this.highestLevel + 2);
+    if (h > front.length) {
+      this.front = Arrays.copyOf(front, h);
+    } // if
+    return new SLBlock<K, V>(blockSize, h);
+  } // newBlock()
+
+  /**
+   * Link block into every one of its levels.  It goes right after prev
+   * (or at the front, if prev is null) on level 0, and on every level
+   * that prev also reaches; above that it follows nodes, the search path
+   * for a key that belongs in prev.
+   */
+  void link(SLBlock<K, V> block, SLBlock<K, V>[] nodes, SLBlock<K, V> prev) {
+    int h = block.next.length;
+    int top = this.highestLevel;
+    for (int i = 0; i < h; i++) {
+      SLBlock<K, V> before;
+      if ((prev != null) && (i < prev.next.length)) {
+        before = prev;
+      } else if ((i <= top) && (i < nodes.length)) {
+        before = nodes[i];
+      } else {
+        before = null; // the level was empty
+      } // if/else
+      block.next[i] = this.next(before, i);
+      if (before == null) {
+        front[i] = block;
+      } else {
+        before.next[i] = block;
+      } // if/else
+    } // for
+    if (h - 1 > this.highestLevel) {
+      this.highestLevel = h - 1;
+    } // if
+  } // link(SLBlock<K,V>, SLBlock<K,V>[], SLBlock<K,V>)
+
+  /**
+   * Find the last block on each level whose first key is less than key
+   * (null meaning front).
+   */
+  @SuppressWarnings("unchecked")
+  SLBlock<K, V>[] getNodes(K key) {
+    SLBlock<K, V>[] nodes = (SLBlock<K, V>[]) new SLBlock[front.length];
+    SLBlock<K, V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      SLBlock<K, V> next = this.next(node, i);
+      while ((next != null) && (comparator.compare(next.key(0), key) < 0)) {
+        node = next;
+        next = node.next[i];
+      } // while
+      nodes[i] = node;
+    } // for
+    return nodes;
+  } // getNodes(K)
+
+  /**
+   * Given the search path for key, find the block that holds key or, if
+   * key is absent, the block it belongs in (or null, if key is smaller
+   * than every key in the list).
+   */
+  SLBlock<K, V> blockFor(SLBlock<K, V>[] nodes, K key) {
+    SLBlock<K, V> next = this.next(nodes[0], 0);
+    if ((next != null) && (comparator.compare(next.key(0), key) == 0)) {
+      return next;
+    } // if
+    return nodes[0];
+  } // blockFor(SLBlock<K,V>[], K)
+
+  /**
+   * Find the block that would hold key, as with blockFor, without building
+   * a search path.
+   */
+  SLBlock<K, V> search(K key) {
+    SLBlock<K, V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      SLBlock<K, V> next = this.next(node, i);
+      int order = -1;
+      while ((next != null) && ((order = comparator.compare(next.key(0), key)) < 0)) {
+        node = next;
+        next = node.next[i];
+      } // while
+      if (order == 0) {
+        return next; // key starts the next block
+      } // if
+    } // for
+    return node;
+  } // search(K)
+
+  /**
+   * Get the block that follows node at the specified level, treating a
+   * null node as the front of the list.
+   */
+  SLBlock<K, V> next(SLBlock<K, V> node, int level) {
+    return (node == null) ? front[level] : node.next[level];
+  } // next(SLBlock<K,V>, int)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * A position in the list, for the iterators.
+   */
+  static class Cursor<K, V> {
+    /**
+     * The block holding the next entry (or null, at the end).
+     */
+    SLBlock<K, V> block;
+
+    /**
+     * Where the next entry is in block; after advance, where the entry
+     * just returned is.
+     */
+    int index;
+
+    /**
+     * Where the entry after that is.
+     */
+    int following;
+
+    Cursor(SLBlock<K, V> block) {
+      this.block = block;
+      this.following = 0;
+    } // Cursor(SLBlock<K,V>)
+
+    boolean hasNext() {
+      return this.block != null;
+    } // hasNext()
+
+    /**
+     * Step to the next entry, returning its block.  (The entry is at index.)
+     */
+    SLBlock<K, V> advance() {
+      if (this.block == null) {
+        throw new NoSuchElementException();
+      } // if
+      SLBlock<K, V> result = this.block;
+      this.index = this.following++;
+      if (this.following == result.count) {
+        this.block = result.next[0];
+        this.following = 0;
+      } // if
+      return result;
+    } // advance()
+  } // class Cursor<K,V>
+
+} // class BlockedSkipList<K,V>
+
+
+/**
+ * Blocks in a BlockedSkipList.
+ */
+class SLBlock<K, V> {
+
+  /**
+   * The keys, in order, in keys[0 .. count-1].
+   */
+  final Object[] keys;
+
+  /**
+   * The values that go with the keys.
+   */
+  final Object[] values;
+
+  /**
+   * The number of entries in the block.
+   */
+  int count;
+
+  /**
+   * Pointers to the next blocks, one per level of the block's tower.
+   */
+  final SLBlock<K, V>[] next;
+
+  /**
+   * Create an empty block with room for capacity entries and height n.
+   */
+  @SuppressWarnings("unchecked")
+  SLBlock(int capacity, int n) {
+    this.keys = new Object[capacity];
+    this.values = new Object[capacity];
+    this.count = 0;
+    this.next = (SLBlock<K, V>[]) new SLBlock[n];
+  } // SLBlock(int, int)
+
+  /**
+   * Get the key at index i.
+   */
+  @SuppressWarnings("unchecked")
+  K key(int i) {
+    return (K) keys[i];
+  } // key(int)
+
+  /**
+   * Get the value at index i.
+   */
+  @SuppressWarnings("unchecked")
+  V value(int i) {
+    return (V) values[i];
+  } // value(int)
+
+  /**
+   * Binary search for key.
+   *
+   * @return the index of key, if present, and (-(insertion point) - 1)
+   *         otherwise, as in Arrays.binarySearch.
+   */
+  int find(K key, Comparator<? super K> comparator) {
+    int lo = 0;
+    int hi = count - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int order = comparator.compare(key(mid), key);
+      if (order < 0) {
+        lo = mid + 1;
+      } else if (order > 0) {
+        hi = mid - 1;
+      } else {
+        return mid;
+      } // if/else
+    } // while
+    return -(lo + 1);
+  } // find(K, Comparator)
+
+  /**
+   * Insert key and value at index pos, moving later entries up.  There
+   * must be room.
+   */
+  void insert(int pos, K key, V value) {
+    System.arraycopy(keys, pos, keys, pos + 1, count - pos);
+    System.arraycopy(values, pos, values, pos + 1, count - pos);
+    keys[pos] = key;
+    values[pos] = value;
+    count++;
+  } // insert(int, K, V)
+
+  /**
+   * Delete the entry at index pos, moving later entries down.
+   */
+  void delete(int pos) {
+    System.arraycopy(keys, pos + 1, keys, pos, count - pos - 1);
+    System.arraycopy(values, pos + 1, values, pos, count - pos - 1);
+    count--;
+    keys[count] = null;
+    values[count] = null;
+  } // delete(int)
+
+} // class SLBlock<K,V>
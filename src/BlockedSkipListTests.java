@@ -0,0 +1,112 @@
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests of blocked skip lists, checked against a TreeMap.  Small blocks
+ * make the tests split and empty blocks often.
+ */
+public class BlockedSkipListTests {
+
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  /**
+   * Build an empty list of integers with blocks of the given size.
+   */
+  static BlockedSkipList<Integer, String> ints(int blockSize) {
+    return new BlockedSkipList<Integer, String>((i, j) -> Integer.compare(i, j), blockSize);
+  } // ints(int)
+
+  /**
+   * Make sure list holds exactly the entries in expected, in order.
+   */
+  static void check(TreeMap<Integer, String> expected, BlockedSkipList<Integer, String> list) {
+    assertEquals(expected.size(), list.size());
+    Iterator<Integer> keys = list.keys();
+    Iterator<String> values = list.values();
+    for (Integer key : expected.keySet()) {
+      assertEquals(key, keys.next());
+      assertEquals(expected.get(key), values.next());
+      assertEquals(expected.get(key), list.get(key));
+    } // for
+    assertFalse(keys.hasNext());
+    assertFalse(values.hasNext());
+    ArrayList<Integer> visited = new ArrayList<Integer>();
+    list.forEach((key, value) -> visited.add(key));
+    assertEquals(new ArrayList<Integer>(expected.keySet()), visited);
+  } // check(TreeMap, BlockedSkipList)
+
+  @Test
+  public void basicTest() {
+    BlockedSkipList<Integer, String> list = ints(4);
+    assertFalse(list.containsKey(1));
+    assertNull(list.remove(1));
+    assertNull(list.set(1, "one"));
+    assertEquals("one", list.set(1, "uno"));
+    assertEquals("uno", list.get(1));
+    assertNull(list.set(2, null));
+    assertTrue(list.containsKey(2));
+    assertNull(list.get(2));
+    assertEquals("uno", list.remove(1));
+    assertNull(list.remove(1));
+    assertEquals(1, list.size());
+    try {
+      list.get(1);
+      fail("get found a removed key");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+  } // basicTest()
+
+  @Test
+  public void orderTest() {
+    // Ascending, descending and interleaved inserts split blocks at
+    // either end and in the middle
+    BlockedSkipList<Integer, String> list = ints(4);
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    for (int i = 0; i < 200; i++) {
+      for (int key : new int[] {i, -i, 1000 + 2 * i, 1999 - 2 * i}) {
+        list.set(key, Integer.toString(key));
+        expected.put(key, Integer.toString(key));
+      } // for
+    } // for
+    check(expected, list);
+  } // orderTest()
+
+  @Test
+  public void randomTest() {
+    for (int blockSize : new int[] {2, 3, 16}) {
+      BlockedSkipList<Integer, String> list = ints(blockSize);
+      TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+      for (int i = 0; i < 20000; i++) {
+        int key = random.nextInt(2000);
+        if (random.nextInt(3) > 0) {
+          String value = Integer.toString(i);
+          assertEquals(expected.put(key, value), list.set(key, value));
+        } else {
+          assertEquals(expected.remove(key), list.remove(key));
+        } // if/else
+        if (random.nextInt(10) == 0) {
+          int probe = random.nextInt(2100) - 50;
+          assertEquals(expected.containsKey(probe), list.containsKey(probe));
+        } // if
+      } // for
+      check(expected, list);
+      // Empty it completely, and start again
+      for (Integer key : new ArrayList<Integer>(expected.keySet())) {
+        assertEquals(expected.remove(key), list.remove(key));
+      } // for
+      check(expected, list);
+      assertEquals(0, list.highestLevel);
+      list.set(7, "seven");
+      assertEquals("seven", list.get(7));
+    } // for
+  } // randomTest()
+
+} // class BlockedSkipListTests
@@ -0,0 +1,496 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * A lock-free implementation of skip lists that may be shared between
+ * threads.
+ *
+ * Links are AtomicMarkableReferences; a set mark on a node's link at some
+ * level means the node is being removed from that level.  Insertion CASes
+ * the new node in bottom-up.  Removal first CASes the node's value to null
+ * (the point at which the key stops being in the map), then marks its
+ * links top-down, and any later traversal that meets a marked link snips
+ * the node out.  get and containsKey never write and never retry.
+ *
+ * Searches start at top, the highest level any node has been given,
+ * rather than at MAX_HEIGHT.  top only ever grows, and set raises it
+ * before linking a taller node, so a search that starts lower than some
+ * tower merely skips that tower's upper levels.
+ *
+ * Iterators are weakly consistent: they never throw because of concurrent
+ * changes, and they see each key at most once, in order.
+ */
+public class ConcurrentSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The maximum height of a node.
+   */
+  static final int MAX_HEIGHT = 32;
+
+  /**
+   * Stands in for null values, since a null value marks a removed node.
+   */
+  static final Object NULL_VALUE = new Object();
+
+  /**
+   * Raises top.
+   */
+  @SuppressWarnings("rawtypes")
+  static final AtomicIntegerFieldUpdater<ConcurrentSkipList> TOP =
+      AtomicIntegerFieldUpdater.newUpdater(ConcurrentSkipList.class, "top");
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The sentinel at the front of every level.  Its key is never examined.
+   */
+  final CSLNode<K> head;
+
+  /**
+   * The comparator used to determine the ordering in the list.
+   */
+  final Comparator<? super K> comparator;
+
+  /**
+   * The number of values in the list.
+   */
+  final LongAdder size;
+
+  /**
+   * The highest level that has ever held a node (0 when none has).
+   */
+  volatile int top;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new skip list that orders values using the specified comparator.
+   */
+  public ConcurrentSkipList(Comparator<? super K> comparator) {
+    this.head = new CSLNode<K>(null, null, MAX_HEIGHT);
+    this.comparator = comparator;
+    this.size = new LongAdder();
+  } // ConcurrentSkipList(Comparator<K>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+
+    Object stored = (value == null) ? NULL_VALUE : value;
+    @SuppressWarnings("unchecked")
+    CSLNode<K>[] preds = (CSLNode<K>[]) new CSLNode[MAX_HEIGHT];
+    @SuppressWarnings("unchecked")
+    CSLNode<K>[] succs = (CSLNode<K>[]) new CSLNode[MAX_HEIGHT];
+    int h = randomHeight();
+    raiseTop(h - 1);
+
+    while (true) {
+      if (find(key, preds, succs)) {
+        // key is already present; replace the value unless it's being removed
+        CSLNode<K> node = succs[0];
+        Object old = node.value.get();
+        while (old != null) {
+          if (node.value.compareAndSet(old, stored)) {
+            return unmask(old);
+          } // if
+          old = node.value.get();
+        } // while
+        // someone else is removing it, so help them and try again
+        markTower(node);
+        continue;
+      } // if key is already present
+
+      CSLNode<K> newnode = new CSLNode<K>(key, stored, h);
+      for (int level = 0; level < h; level++) {
+        newnode.next[level].set(succs[level], false);
+      } // for
+
+      // the node is in the map once it is on level 0
+      if (!preds[0].next[0].compareAndSet(succs[0], newnode, false, false)) {
+        continue;
+      } // if
+      size.increment();
+
+      // link the rest of the tower, giving up if someone removes the node
+      for (int level = 1; level < h; level++) {
+        while (true) {
+          CSLNode<K> succ = succs[level];
+          CSLNode<K> current = newnode.next[level].getReference();
+          if (newnode.next[level].isMarked()) {
+            return null;
+          } // if the node is being removed
+          if ((current != succ)
+              && !newnode.next[level].compareAndSet(current, succ, false, false)) {
+            continue;
+          } // if our link is stale and we could not refresh it
+          if (preds[level].next[level].compareAndSet(succ, newnode, false, false)) {
+            break;
+          } // if
+          find(key, preds, succs);
+          if (succs[0] != newnode) {
+            return null;
+          } // if the node has been removed
+        } // while
+      } // for
+      return null;
+    } // while
+  } // set(K,V)
+
+  @Override
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    Object value = lookup(key);
+    if (value == null) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return unmask(value);
+  } // get(K)
+
+  @Override
+  public int size() {
+    return (int) size.sum();
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return lookup(key) != null;
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+
+    @SuppressWarnings("unchecked")
+    CSLNode<K>[] preds = (CSLNode<K>[]) new CSLNode[MAX_HEIGHT];
+    @SuppressWarnings("unchecked")
+    CSLNode<K>[] succs = (CSLNode<K>[]) new CSLNode[MAX_HEIGHT];
+
+    if (!find(key, preds, succs)) {
+      return null;
+    } // if
+    CSLNode<K> node = succs[0];
+    Object old = node.value.get();
+    while (old != null) {
+      if (node.value.compareAndSet(old, null)) {
+        size.decrement();
+        markTower(node);
+        find(key, preds, succs); // unlinks the node
+        return unmask(old);
+      } // if
+      old = node.value.get();
+    } // while
+    return null;
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      Iterator<CSLNode<K>> nit = ConcurrentSkipList.this.nodes();
+
+      @Override
+      public boolean hasNext() {
+        return nit.hasNext();
+      } // hasNext()
+
+      @Override
+      public K next() {
+        return nit.next().key;
+      } // next()
+
+      @Override
+      public void remove() {
+        nit.remove();
+      } // remove()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      NodeIterator nit = new NodeIterator();
+
+      @Override
+      public boolean hasNext() {
+        return nit.hasNext();
+      } // hasNext()
+
+      @Override
+      public V next() {
+        return unmask(nit.nextValue());
+      } // next()
+
+      @Override
+      public void remove() {
+        nit.remove();
+      } // remove()
+    };
+  } // values()
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    CSLNode<K> node = head.next[0].getReference();
+    while (node != null) {
+      Object value = node.value.get();
+      if (value != null) {
+        action.accept(node.key, unmask(value));
+      } // if
+      node = node.next[0].getReference();
+    } // while
+  } // forEach(BiConsumer)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Pick a random height for a new node (with probability 1/2 per level).
+   */
+  int randomHeight() {
+    return HeightGenerator.DEFAULT.nextHeight(MAX_HEIGHT);
+  } // randomHeight()
+
+  /**
+   * Make sure top is at least level.
+   */
+  void raiseTop(int level) {
+    int current = top;
+    while ((current < level) && !TOP.compareAndSet(this, current, level)) {
+      current = top;
+    } // while
+  } // raiseTop(int)
+
+  /**
+   * Find the stored value for key (or null, if the key is not present)
+   * without modifying the list.
+   */
+  Object lookup(K key) {
+    CSLNode<K> pred = head;
+    CSLNode<K> current = null;
+    for (int level = top; level >= 0; level--) {
+      current = pred.next[level].getReference();
+      while (current != null && comparator.compare(current.key, key) < 0) {
+        pred = current;
+        current = current.next[level].getReference();
+      } // while
+    } // for
+    if (current != null && comparator.compare(current.key, key) == 0) {
+      return current.value.get();
+    } // if
+    return null;
+  } // lookup(K)
+
+  /**
+   * Fill in the last node before key and the first node at or after key on
+   * every level up to top, unlinking any marked nodes we pass.  Returns
+   * true if the node after key on level 0 has that key.
+   */
+  boolean find(K key, CSLNode<K>[] preds, CSLNode<K>[] succs) {
+    boolean[] marked = {false};
+    retry: while (true) {
+      CSLNode<K> pred = head;
+      CSLNode<K> current = null;
+      for (int level = top; level >= 0; level--) {
+        current = pred.next[level].getReference();
+        while (current != null) {
+          CSLNode<K> succ = current.next[level].get(marked);
+          if (marked[0]) {
+            // current is being removed, so snip it out of this level
+            if (!pred.next[level].compareAndSet(current, succ, false, false)) {
+              continue retry;
+            } // if
+            current = succ;
+          } else if (comparator.compare(current.key, key) < 0) {
+            pred = current;
+            current = succ;
+          } else {
+            break;
+          } // if/else
+        } // while
+        preds[level] = pred;
+        succs[level] = current;
+      } // for
+      return (current != null) && (comparator.compare(current.key, key) == 0);
+    } // while
+  } // find(K, CSLNode[], CSLNode[])
+
+  /**
+   * Mark every link in node's tower, from the top down.
+   */
+  void markTower(CSLNode<K> node) {
+    for (int level = node.next.length - 1; level >= 0; level--) {
+      AtomicMarkableReference<CSLNode<K>> link = node.next[level];
+      while (!link.isMarked()) {
+        link.attemptMark(link.getReference(), true);
+      } // while
+    } // for
+  } // markTower(CSLNode<K>)
+
+  /**
+   * Convert a stored value back to a value.
+   */
+  @SuppressWarnings("unchecked")
+  static <V> V unmask(Object value) {
+    return (value == NULL_VALUE) ? null : (V) value;
+  } // unmask(Object)
+
+  /**
+   * Get an iterator for all of the nodes that are still present.
+   */
+  Iterator<CSLNode<K>> nodes() {
+    return new NodeIterator();
+  } // nodes()
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * Walks level 0, skipping nodes that have been removed.  Remembers the
+   * value it saw for each node, so values() reports a consistent pair.
+   */
+  class NodeIterator implements Iterator<CSLNode<K>> {
+
+    /**
+     * The next node to return (or null, at the end).
+     */
+    CSLNode<K> next;
+
+    /**
+     * The value next had when we reached it.
+     */
+    Object nextValue;
+
+    /**
+     * The node we returned most recently (for remove).
+     */
+    CSLNode<K> last;
+
+    NodeIterator() {
+      advance(head);
+    } // NodeIterator()
+
+    /**
+     * Move next to the first live node after node.
+     */
+    void advance(CSLNode<K> node) {
+      CSLNode<K> current = node.next[0].getReference();
+      while (current != null) {
+        Object value = current.value.get();
+        if (value != null) {
+          this.next = current;
+          this.nextValue = value;
+          return;
+        } // if
+        current = current.next[0].getReference();
+      } // while
+      this.next = null;
+      this.nextValue = null;
+    } // advance(CSLNode<K>)
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    } // hasNext()
+
+    @Override
+    public CSLNode<K> next() {
+      nextValue();
+      return this.last;
+    } // next()
+
+    /**
+     * Advance, returning the value of the node we pass.
+     */
+    Object nextValue() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      } // if
+      Object value = this.nextValue;
+      this.last = this.next;
+      advance(this.next);
+      return value;
+    } // nextValue()
+
+    @Override
+    public void remove() {
+      if (this.last == null) {
+        throw new IllegalStateException();
+      } // if
+      ConcurrentSkipList.this.remove(this.last.key);
+      this.last = null;
+    } // remove()
+  } // class NodeIterator
+
+} // class ConcurrentSkipList
+
+
+/**
+ * Nodes in a concurrent skip list.
+ */
+class CSLNode<K> {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The key.
+   */
+  final K key;
+
+  /**
+   * The value (masked, see ConcurrentSkipList.NULL_VALUE), or null once
+   * the node has been removed.
+   */
+  final AtomicReference<Object> value;
+
+  /**
+   * Markable pointers to the next nodes, one per level.
+   */
+  final AtomicMarkableReference<CSLNode<K>>[] next;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new node of height n with the specified key and value.
+   */
+  @SuppressWarnings("unchecked")
+  CSLNode(K key, Object value, int n) {
+    this.key = key;
+    this.value = new AtomicReference<Object>(value);
+    this.next = (AtomicMarkableReference<CSLNode<K>>[]) new AtomicMarkableReference[n];
+    for (int i = 0; i < n; i++) {
+      this.next[i] = new AtomicMarkableReference<CSLNode<K>>(null, false);
+    } // for
+  } // CSLNode(K, Object, int)
+
+} // class CSLNode<K>
@@ -0,0 +1,210 @@
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+
+/**
+ * Tests of concurrent skip lists, including some multi-threaded stress
+ * tests.
+ */
+public class ConcurrentSkipListTests {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How many threads the stress tests use.
+   */
+  static final int THREADS = 8;
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build an empty list of integers.
+   */
+  static ConcurrentSkipList<Integer, String> ints() {
+    return new ConcurrentSkipList<Integer, String>((i, j) -> Integer.compare(i, j));
+  } // ints()
+
+  /**
+   * Run body(t) in each of THREADS threads and wait for them all, failing
+   * if any of them throws.
+   */
+  static void inParallel(java.util.function.IntConsumer body) throws InterruptedException {
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    ConcurrentHashMap<Integer, Throwable> failures = new ConcurrentHashMap<Integer, Throwable>();
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      Thread thread = new Thread(() -> {
+        try {
+          body.accept(id);
+        } catch (Throwable e) {
+          failures.put(id, e);
+        } // try/catch
+      });
+      threads.add(thread);
+      thread.start();
+    } // for
+    for (Thread thread : threads) {
+      thread.join();
+    } // for
+    if (!failures.isEmpty()) {
+      throw new AssertionError(failures.values().iterator().next());
+    } // if
+  } // inParallel(IntConsumer)
+
+  /**
+   * Make sure the keys come out in strictly increasing order, and return
+   * how many there were.
+   */
+  static int checkOrder(ConcurrentSkipList<Integer, String> list) {
+    int count = 0;
+    Integer prev = null;
+    Iterator<Integer> it = list.keys();
+    while (it.hasNext()) {
+      Integer key = it.next();
+      if (prev != null) {
+        assertTrue(prev + " before " + key, prev < key);
+      } // if
+      prev = key;
+      count++;
+    } // while
+    return count;
+  } // checkOrder(ConcurrentSkipList)
+
+  // +-------------+-----------------------------------------------------
+  // | Basic Tests |
+  // +-------------+
+
+  @Test
+  public void basicTest() {
+    ConcurrentSkipList<Integer, String> list = ints();
+    assertFalse(list.containsKey(1));
+    assertNull(list.set(1, "one"));
+    assertEquals("one", list.set(1, "uno"));
+    assertEquals("uno", list.get(1));
+    assertNull(list.set(2, null));
+    assertTrue(list.containsKey(2));
+    assertNull(list.get(2));
+    assertEquals(2, list.size());
+    assertEquals("uno", list.remove(1));
+    assertNull(list.remove(1));
+    assertFalse(list.containsKey(1));
+    assertEquals(1, list.size());
+  } // basicTest()
+
+  @Test
+  public void getMissingTest() {
+    ConcurrentSkipList<Integer, String> list = ints();
+    list.set(1, "one");
+    try {
+      list.get(2);
+      fail("get of a missing key should throw");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+  } // getMissingTest()
+
+  /**
+   * Searches start at the tallest tower, not at MAX_HEIGHT, and still
+   * find every key after threads raise the top concurrently.
+   */
+  @Test
+  public void topTest() throws InterruptedException {
+    ConcurrentSkipList<Integer, String> list = ints();
+    assertEquals(0, list.top);
+    int perThread = 5000;
+    inParallel((t) -> {
+      for (int i = 0; i < perThread; i++) {
+        int key = i * THREADS + t;
+        list.set(key, Integer.toString(key));
+      } // for
+    });
+    int tallest = 0;
+    for (CSLNode<Integer> node = list.head.next[0].getReference(); node != null;
+        node = node.next[0].getReference()) {
+      tallest = Math.max(tallest, node.next.length);
+    } // for
+    assertEquals(tallest - 1, list.top);
+    assertTrue(list.top < ConcurrentSkipList.MAX_HEIGHT - 1);
+    for (int key = 0; key < THREADS * perThread; key++) {
+      assertEquals(Integer.toString(key), list.get(key));
+    } // for
+  } // topTest()
+
+  // +--------------+----------------------------------------------------
+  // | Stress Tests |
+  // +--------------+
+
+  /**
+   * Threads insert disjoint keys; afterwards every key must be there.
+   */
+  @Test
+  public void disjointInsertTest() throws InterruptedException {
+    ConcurrentSkipList<Integer, String> list = ints();
+    int perThread = 5000;
+    inParallel((t) -> {
+      for (int i = 0; i < perThread; i++) {
+        int key = i * THREADS + t;
+        list.set(key, Integer.toString(key));
+      } // for
+    });
+    assertEquals(THREADS * perThread, list.size());
+    assertEquals(THREADS * perThread, checkOrder(list));
+    for (int key = 0; key < THREADS * perThread; key++) {
+      assertEquals(Integer.toString(key), list.get(key));
+    } // for
+  } // disjointInsertTest()
+
+  /**
+   * Threads insert and remove overlapping keys at random.  Each thread
+   * owns the keys congruent to its id for the final check, so we know
+   * exactly which of those should survive.
+   */
+  @Test
+  public void churnTest() throws InterruptedException {
+    ConcurrentSkipList<Integer, String> list = ints();
+    int range = 2000;
+    boolean[][] expected = new boolean[THREADS][range];
+    inParallel((t) -> {
+      Random random = new Random(t);
+      for (int i = 0; i < 50000; i++) {
+        int key = random.nextInt(range) * THREADS + t;
+        // hammer a shared key too, so the threads really collide
+        int shared = random.nextInt(64) * THREADS + THREADS * range;
+        if (random.nextBoolean()) {
+          list.set(key, "x");
+          list.set(shared, "y");
+          expected[t][key / THREADS] = true;
+        } else {
+          list.remove(key);
+          list.remove(shared);
+          expected[t][key / THREADS] = false;
+        } // if/else
+      } // for
+    });
+    int count = 0;
+    for (int t = 0; t < THREADS; t++) {
+      for (int i = 0; i < range; i++) {
+        assertEquals("key " + (i * THREADS + t), expected[t][i],
+            list.containsKey(i * THREADS + t));
+        if (expected[t][i]) {
+          count++;
+        } // if
+      } // for
+    } // for
+    for (int i = 0; i < 64; i++) {
+      if (list.containsKey(i * THREADS + THREADS * range)) {
+        count++;
+      } // if
+    } // for
+    assertEquals(count, list.size());
+    assertEquals(count, checkOrder(list));
+  } // churnTest()
+
+} // class ConcurrentSkipListTests
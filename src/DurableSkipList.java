@@ -0,0 +1,601 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * A SkipList that survives crashes, using a write-ahead log and snapshots
+ * kept in a directory.
+ *
+ * Every set and remove is appended to the log before it is applied.  When
+ * syncing on every write, the caller then waits until the record is on
+ * disk, and threads that are waiting at the same time share one fsync
+ * (group commit).  Otherwise records are only forced by commit(), so the
+ * caller chooses how many writes each fsync covers.
+ *
+ * snapshot() streams the level-0 chain to a new snapshot file, swaps it
+ * in atomically, forces the directory so that the swap is durable, and
+ * only then empties the log.  Recovery loads the snapshot and the log,
+ * keeps only the last logged operation for each key, merges the two
+ * sorted streams, and builds the list with SkipList.fromSorted.  It never
+ * calls set.  A torn record at the end of the log (from a crash
+ * mid-append) ends replay and is cut off.
+ *
+ * Log records are
+ *   int     CRC32 of the rest of the record
+ *   byte    OP_SET or OP_REMOVE
+ *   key     keySerializer.width() bytes
+ *   byte    1 if the value is null (OP_SET only)
+ *   value   valueSerializer.width() bytes (OP_SET only)
+ *
+ * Snapshots are SNAPSHOT_MAGIC, an entry count, and then the entries in
+ * key order, each as key, null flag and value.
+ */
+public class DurableSkipList<K, V> implements SimpleMap<K, V>, Closeable {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Record types.
+   */
+  static final byte OP_SET = 1;
+  static final byte OP_REMOVE = 2;
+
+  /**
+   * Identifies snapshot files.
+   */
+  static final long SNAPSHOT_MAGIC = 0x534B49504C534E50L;
+
+  /**
+   * The names of our files within the directory.
+   */
+  static final String LOG = "wal";
+  static final String SNAPSHOT = "snapshot";
+
+  /**
+   * How many bytes of records we buffer before handing them to the file.
+   */
+  static final int BUFFER_SIZE = 1 << 16;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The entries.
+   */
+  SkipList<K, V> list;
+
+  /**
+   * The directory holding our files.
+   */
+  final Path dir;
+
+  /**
+   * How we store keys.
+   */
+  final Serializer<K> keySerializer;
+
+  /**
+   * How we store values.
+   */
+  final Serializer<V> valueSerializer;
+
+  /**
+   * The comparator used to determine the ordering in the list.
+   */
+  final Comparator<K> comparator;
+
+  /**
+   * Whether set and remove wait until their record is on disk.
+   */
+  final boolean syncOnWrite;
+
+  /**
+   * The log file.
+   */
+  FileChannel log;
+
+  /**
+   * Records that have not been written to the log file yet.
+   */
+  ByteBuffer pending;
+
+  /**
+   * The number of records appended so far.
+   */
+  long appended;
+
+  /**
+   * The number of records known to be on disk.  (Guarded by syncLock.)
+   */
+  long durable;
+
+  /**
+   * Held while forcing the log, so that one thread syncs for everybody.
+   * Locks are always taken in the order syncLock, then this.  pending,
+   * appended and the log's write position are guarded by this, so
+   * writers can keep appending while another thread waits for an fsync.
+   */
+  final Object syncLock = new Object();
+
+  /**
+   * Scratch space for building a record.
+   */
+  final ByteBuffer record;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Open (or create) the durable list kept in dir, recovering whatever the
+   * snapshot and log there hold.
+   */
+  public DurableSkipList(Path dir, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+      Comparator<K> comparator, boolean syncOnWrite) throws IOException {
+    this.dir = dir;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.comparator = comparator;
+    this.syncOnWrite = syncOnWrite;
+    this.record = ByteBuffer.allocate(recordSize());
+    this.pending = ByteBuffer.allocate(Math.max(BUFFER_SIZE, recordSize()));
+    Files.createDirectories(dir);
+    this.list = recover();
+    this.log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    this.appended = 0;
+    this.durable = 0;
+  } // DurableSkipList(Path, Serializer<K>, Serializer<V>, Comparator<K>, boolean)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    long lsn;
+    V old;
+    synchronized (this) {
+      lsn = append(OP_SET, key, value);
+      old = list.set(key, value);
+    } // synchronized
+    if (syncOnWrite) {
+      sync(lsn);
+    } // if
+    return old;
+  } // set(K, V)
+
+  @Override
+  public synchronized V get(K key) {
+    return list.get(key);
+  } // get(K)
+
+  @Override
+  public synchronized int size() {
+    return list.size();
+  } // size()
+
+  @Override
+  public synchronized boolean containsKey(K key) {
+    return list.containsKey(key);
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    long lsn;
+    V old;
+    synchronized (this) {
+      if (!list.containsKey(key)) {
+        return null;
+      } // if
+      lsn = append(OP_REMOVE, key, null);
+      old = list.remove(key);
+    } // synchronized
+    if (syncOnWrite) {
+      sync(lsn);
+    } // if
+    return old;
+  } // remove(K)
+
+  /**
+   * Get an iterator for the keys.  Not safe to use while other threads
+   * are changing the list.
+   */
+  @Override
+  public Iterator<K> keys() {
+    return list.keys();
+  } // keys()
+
+  /**
+   * Get an iterator for the values.  Not safe to use while other threads
+   * are changing the list.
+   */
+  @Override
+  public Iterator<V> values() {
+    return list.values();
+  } // values()
+
+  @Override
+  public synchronized void forEach(BiConsumer<? super K, ? super V> action) {
+    list.forEach(action);
+  } // forEach(BiConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Make every change so far durable.
+   */
+  public void commit() {
+    long lsn;
+    synchronized (this) {
+      lsn = appended;
+    } // synchronized
+    sync(lsn);
+  } // commit()
+
+  /**
+   * Write a snapshot of the current entries and empty the log.
+   */
+  public void snapshot() throws IOException {
+    synchronized (syncLock) {
+      synchronized (this) {
+        writeSnapshot();
+        // The snapshot covers everything logged so far, so start a new log
+        pending.clear();
+        log.truncate(0);
+        log.force(true);
+        durable = appended;
+      } // synchronized
+    } // synchronized
+  } // snapshot()
+
+  /**
+   * Commit everything and close the log.
+   */
+  @Override
+  public void close() throws IOException {
+    commit();
+    log.close();
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Stream the level-0 chain to a new snapshot file, swap it in, and force
+   * the directory so that the swap survives a crash.
+   */
+  void writeSnapshot() throws IOException {
+    Path temp = dir.resolve(SNAPSHOT + ".tmp");
+    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream data = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(out), BUFFER_SIZE));
+      data.writeLong(SNAPSHOT_MAGIC);
+      data.writeLong(list.size());
+      byte[] entry = new byte[entrySize()];
+      ByteBuffer buf = ByteBuffer.wrap(entry);
+      Iterator<SLNode<K, V>> nodes = list.nodes();
+      while (nodes.hasNext()) {
+        SLNode<K, V> node = nodes.next();
+        writeEntry(buf, 0, node.key, node.value);
+        data.write(entry);
+      } // while
+      data.flush();
+      out.force(true);
+    } // try
+    Files.move(temp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    // The rename is only durable once the directory is, and the caller is
+    // about to empty the log that the old snapshot still needs
+    try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+      directory.force(true);
+    } // try
+  } // writeSnapshot()
+
+  /**
+   * Determine how many bytes a log record takes.
+   */
+  int recordSize() {
+    return Integer.BYTES + 1 + entrySize();
+  } // recordSize()
+
+  /**
+   * Determine how many bytes a key, null flag and value take.
+   */
+  int entrySize() {
+    return keySerializer.width() + 1 + valueSerializer.width();
+  } // entrySize()
+
+  /**
+   * Write key, a null flag and value into buf at offset.
+   */
+  void writeEntry(ByteBuffer buf, int offset, K key, V value) {
+    keySerializer.write(buf, offset, key);
+    offset += keySerializer.width();
+    buf.put(offset, (byte) ((value == null) ? 1 : 0));
+    if (value != null) {
+      valueSerializer.write(buf, offset + 1, value);
+    } // if
+  } // writeEntry(ByteBuffer, int, K, V)
+
+  /**
+   * Read the value part of an entry at offset in buf.
+   */
+  V readValue(ByteBuffer buf, int offset) {
+    if (buf.get(offset) == 1) {
+      return null;
+    } // if
+    return valueSerializer.read(buf, offset + 1);
+  } // readValue(ByteBuffer, int)
+
+  /**
+   * Append a record to the pending buffer and return its sequence number.
+   * The caller must hold our lock.
+   */
+  long append(byte op, K key, V value) {
+    byte[] bytes = record.array();
+    Arrays.fill(bytes, (byte) 0);
+    record.put(Integer.BYTES, op);
+    writeEntry(record, Integer.BYTES + 1, key, value);
+    CRC32 crc = new CRC32();
+    crc.update(bytes, Integer.BYTES, bytes.length - Integer.BYTES);
+    record.putInt(0, (int) crc.getValue());
+
+    if (pending.remaining() < bytes.length) {
+      writePending();
+    } // if
+    pending.put(bytes);
+    return ++appended;
+  } // append(byte, K, V)
+
+  /**
+   * Hand the pending records to the log file.  The caller must hold our
+   * lock.
+   */
+  void writePending() {
+    try {
+      pending.flip();
+      while (pending.hasRemaining()) {
+        log.write(pending);
+      } // while
+      pending.clear();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // writePending()
+
+  /**
+   * Wait until record lsn is on disk.  Whichever thread gets here first
+   * writes and forces everything appended so far, so the others usually
+   * find their records already durable.  Appends continue during the
+   * fsync, since we only hold syncLock for it.
+   */
+  void sync(long lsn) {
+    synchronized (syncLock) {
+      if (durable >= lsn) {
+        return;
+      } // if
+      long target;
+      synchronized (this) {
+        target = appended;
+        writePending();
+      } // synchronized
+      try {
+        log.force(false);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+      durable = target;
+    } // synchronized
+  } // sync(long)
+
+  /**
+   * Rebuild the list from the snapshot and the log.
+   */
+  SkipList<K, V> recover() throws IOException {
+    // Collapse the log to the last operation on each key
+    TreeMap<K, Map.Entry<Byte, V>> changes = new TreeMap<K, Map.Entry<Byte, V>>(comparator);
+    Path logFile = dir.resolve(LOG);
+    if (Files.exists(logFile)) {
+      long good = 0;
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile), BUFFER_SIZE)) {
+        byte[] bytes = new byte[recordSize()];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        DataInputStream data = new DataInputStream(in);
+        while (true) {
+          try {
+            data.readFully(bytes);
+          } catch (EOFException e) {
+            break;
+          } // try/catch
+          CRC32 crc = new CRC32();
+          crc.update(bytes, Integer.BYTES, bytes.length - Integer.BYTES);
+          if (buf.getInt(0) != (int) crc.getValue()) {
+            break;
+          } // if the record is torn
+          byte op = buf.get(Integer.BYTES);
+          K key = keySerializer.read(buf, Integer.BYTES + 1);
+          V value = (op == OP_SET)
+              ? readValue(buf, Integer.BYTES + 1 + keySerializer.width())
+              : null;
+          changes.put(key, new AbstractMap.SimpleEntry<Byte, V>(op, value));
+          good += bytes.length;
+        } // while
+      } // try
+      if (Files.size(logFile) > good) {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+          channel.truncate(good);
+          channel.force(true);
+        } // try
+      } // if the log ends with a torn record
+    } // if there is a log
+
+    Path snapshotFile = dir.resolve(SNAPSHOT);
+    if (!Files.exists(snapshotFile)) {
+      return SkipList.fromSorted(new Merge(null, 0, changes), comparator);
+    } // if
+    try (DataInputStream data = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(snapshotFile), BUFFER_SIZE))) {
+      if (data.readLong() != SNAPSHOT_MAGIC) {
+        throw new IOException("not a snapshot file: " + snapshotFile);
+      } // if
+      long count = data.readLong();
+      return SkipList.fromSorted(new Merge(data, count, changes), comparator);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } // try/catch
+  } // recover()
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * The entries of a snapshot with the collapsed log applied, in key
+   * order.
+   */
+  class Merge implements Iterator<Map.Entry<K, V>> {
+
+    /**
+     * The rest of the snapshot (or null, if there is none).
+     */
+    final DataInputStream snapshot;
+
+    /**
+     * The number of snapshot entries we have not read.
+     */
+    long remaining;
+
+    /**
+     * The last operation on each logged key.
+     */
+    final Iterator<Map.Entry<K, Map.Entry<Byte, V>>> changes;
+
+    /**
+     * The next snapshot entry and log change, or null.
+     */
+    Map.Entry<K, V> nextEntry;
+    Map.Entry<K, Map.Entry<Byte, V>> nextChange;
+
+    /**
+     * The next merged entry to return, or null at the end.
+     */
+    Map.Entry<K, V> next;
+
+    /**
+     * Scratch space for reading snapshot entries.
+     */
+    final ByteBuffer buf = ByteBuffer.allocate(entrySize());
+
+    Merge(DataInputStream snapshot, long count, TreeMap<K, Map.Entry<Byte, V>> changes) {
+      this.snapshot = snapshot;
+      this.remaining = count;
+      this.changes = changes.entrySet().iterator();
+      this.nextEntry = readEntry();
+      this.nextChange = this.changes.hasNext() ? this.changes.next() : null;
+      advance();
+    } // Merge(DataInputStream, long, TreeMap)
+
+    /**
+     * Read the next snapshot entry (or null, at the end).
+     */
+    Map.Entry<K, V> readEntry() {
+      if (remaining == 0) {
+        return null;
+      } // if
+      remaining--;
+      try {
+        snapshot.readFully(buf.array());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } // try/catch
+      return new AbstractMap.SimpleEntry<K, V>(keySerializer.read(buf, 0),
+          readValue(buf, keySerializer.width()));
+    } // readEntry()
+
+    /**
+     * Find the next entry that survives the log.
+     */
+    void advance() {
+      while ((nextEntry != null) || (nextChange != null)) {
+        int order;
+        if (nextEntry == null) {
+          order = 1;
+        } else if (nextChange == null) {
+          order = -1;
+        } else {
+          order = comparator.compare(nextEntry.getKey(), nextChange.getKey());
+        } // if/else
+
+        if (order < 0) {
+          // only in the snapshot
+          next = nextEntry;
+          nextEntry = readEntry();
+          return;
+        } // if
+        // the log has the last word on this key
+        Map.Entry<K, Map.Entry<Byte, V>> change = nextChange;
+        nextChange = changes.hasNext() ? changes.next() : null;
+        if (order == 0) {
+          nextEntry = readEntry();
+        } // if
+        if (change.getValue().getKey() == OP_SET) {
+          next = new AbstractMap.SimpleEntry<K, V>(change.getKey(), change.getValue().getValue());
+          return;
+        } // if
+      } // while
+      next = null;
+    } // advance()
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    } // hasNext()
+
+    @Override
+    public Map.Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      } // if
+      Map.Entry<K, V> result = next;
+      advance();
+      return result;
+    } // next()
+  } // class Merge
+
+} // class DurableSkipList<K,V>
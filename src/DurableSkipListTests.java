@@ -0,0 +1,225 @@
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests of logged skip lists: whatever was committed must come back after
+ * a reopen, with or without a snapshot, and with or without a clean close.
+ */
+public class DurableSkipListTests {
+
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  /**
+   * How we order keys.
+   */
+  static final Comparator<Long> ORDER = (i, j) -> Long.compare(i, j);
+
+  /**
+   * Open the list kept in dir.
+   */
+  static DurableSkipList<Long, String> open(Path dir, boolean sync) throws IOException {
+    return new DurableSkipList<Long, String>(dir, Serializer.LONG, Serializer.string(12),
+        ORDER, sync);
+  } // open(Path, boolean)
+
+  /**
+   * Make sure list holds exactly the entries in expected.
+   */
+  static void check(TreeMap<Long, String> expected, DurableSkipList<Long, String> list) {
+    assertEquals(expected.size(), list.size());
+    Iterator<Long> keys = list.keys();
+    for (Long key : expected.keySet()) {
+      assertEquals(key, keys.next());
+      assertEquals(expected.get(key), list.get(key));
+    } // for
+    assertFalse(keys.hasNext());
+  } // check(TreeMap, DurableSkipList)
+
+  /**
+   * Do some random sets and removes to both maps.
+   */
+  void churn(TreeMap<Long, String> expected, DurableSkipList<Long, String> list, int n) {
+    for (int i = 0; i < n; i++) {
+      long key = random.nextInt(500);
+      if (random.nextInt(3) > 0) {
+        String value = (random.nextInt(10) == 0) ? null : Integer.toString(i);
+        assertEquals(expected.put(key, value), list.set(key, value));
+      } else {
+        assertEquals(expected.remove(key), list.remove(key));
+      } // if/else
+    } // for
+  } // churn(TreeMap, DurableSkipList, int)
+
+  /**
+   * Delete dir and everything in it.
+   */
+  static void delete(Path dir) throws IOException {
+    ArrayList<Path> files = new ArrayList<Path>();
+    Files.list(dir).forEach(files::add);
+    for (Path file : files) {
+      Files.delete(file);
+    } // for
+    Files.delete(dir);
+  } // delete(Path)
+
+  @Test
+  public void logOnlyTest() throws IOException {
+    Path dir = Files.createTempDirectory("durable");
+    try {
+      TreeMap<Long, String> expected = new TreeMap<Long, String>();
+      DurableSkipList<Long, String> list = open(dir, true);
+      churn(expected, list, 2000);
+      // Drop the list without closing it, as if we had crashed
+      list.log.close();
+      list = open(dir, true);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(dir);
+    } // try/finally
+  } // logOnlyTest()
+
+  @Test
+  public void snapshotTest() throws IOException {
+    Path dir = Files.createTempDirectory("durable");
+    try {
+      TreeMap<Long, String> expected = new TreeMap<Long, String>();
+      DurableSkipList<Long, String> list = open(dir, false);
+      churn(expected, list, 2000);
+      list.snapshot();
+      assertEquals(0, Files.size(dir.resolve(DurableSkipList.LOG)));
+      churn(expected, list, 2000);
+      list.close();
+      list = open(dir, false);
+      check(expected, list);
+      // A second snapshot on top of the recovered list
+      churn(expected, list, 500);
+      list.snapshot();
+      list.close();
+      list = open(dir, false);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(dir);
+    } // try/finally
+  } // snapshotTest()
+
+  /**
+   * A crash during snapshot() leaves either the old snapshot (and perhaps
+   * a stray temporary file) or the new one, next to the whole log, since
+   * the log is only emptied after the new snapshot is durable.  Recovery
+   * must give the same entries from both.
+   */
+  @Test
+  public void snapshotCrashTest() throws IOException {
+    Path dir = Files.createTempDirectory("durable");
+    try {
+      TreeMap<Long, String> expected = new TreeMap<Long, String>();
+      DurableSkipList<Long, String> list = open(dir, false);
+      churn(expected, list, 1000);
+      list.snapshot();
+      Path snapshot = dir.resolve(DurableSkipList.SNAPSHOT);
+      Path log = dir.resolve(DurableSkipList.LOG);
+      byte[] oldSnapshot = Files.readAllBytes(snapshot);
+      churn(expected, list, 1000);
+      list.commit();
+      byte[] oldLog = Files.readAllBytes(log);
+      list.snapshot();
+      byte[] newSnapshot = Files.readAllBytes(snapshot);
+      list.close();
+
+      // crashed after the rename, before the log was emptied
+      Files.write(log, oldLog);
+      list = open(dir, false);
+      check(expected, list);
+      list.close();
+
+      // crashed before the rename
+      Files.write(snapshot, oldSnapshot);
+      Files.write(dir.resolve(DurableSkipList.SNAPSHOT + ".tmp"), newSnapshot);
+      Files.write(log, oldLog);
+      list = open(dir, false);
+      check(expected, list);
+      // and the next snapshot replaces the stray file
+      churn(expected, list, 200);
+      list.snapshot();
+      list.close();
+      list = open(dir, false);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(dir);
+    } // try/finally
+  } // snapshotCrashTest()
+
+  @Test
+  public void tornRecordTest() throws IOException {
+    Path dir = Files.createTempDirectory("durable");
+    try {
+      TreeMap<Long, String> expected = new TreeMap<Long, String>();
+      DurableSkipList<Long, String> list = open(dir, false);
+      churn(expected, list, 300);
+      list.close();
+      // Half a record of garbage, as if we crashed mid-append
+      try (FileChannel log = FileChannel.open(dir.resolve(DurableSkipList.LOG),
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+        log.write(java.nio.ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7}));
+      } // try
+      list = open(dir, false);
+      check(expected, list);
+      churn(expected, list, 300);
+      list.close();
+      list = open(dir, false);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(dir);
+    } // try/finally
+  } // tornRecordTest()
+
+  @Test
+  public void groupCommitTest() throws Exception {
+    Path dir = Files.createTempDirectory("durable");
+    try {
+      DurableSkipList<Long, String> shared = open(dir, true);
+      Thread[] writers = new Thread[4];
+      for (int t = 0; t < writers.length; t++) {
+        final long base = t * 1000;
+        writers[t] = new Thread(() -> {
+          for (long i = 0; i < 250; i++) {
+            shared.set(base + i, Long.toString(i));
+          } // for
+        });
+        writers[t].start();
+      } // for
+      for (Thread writer : writers) {
+        writer.join();
+      } // for
+      // Every set returned after its record was synced
+      assertEquals(1000, shared.durable);
+      shared.log.close();
+      DurableSkipList<Long, String> list = open(dir, true);
+      assertEquals(1000, list.size());
+      for (long t = 0; t < writers.length; t++) {
+        assertEquals("249", list.get(t * 1000 + 249));
+      } // for
+      list.close();
+    } finally {
+      delete(dir);
+    } // try/finally
+  } // groupCommitTest()
+
+} // class DurableSkipListTests
@@ -0,0 +1,174 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the heights of new skip list nodes.  A node reaches level i + 1
+ * with probability prob() given that it reaches level i, so heights are
+ * geometrically distributed.
+ */
+public interface HeightGenerator {
+
+  /**
+   * Pick a height between 1 and max, inclusive.
+   */
+  public int nextHeight(int max);
+
+  /**
+   * Get the probability that a node reaches each next level.
+   */
+  public double prob();
+
+  // +-----------------+---------------------------------------------
+  // | Standard values |
+  // +-----------------+
+
+  /**
+   * Fair coins, flipped 64 at a time: one random long from the calling
+   * thread's generator, and the height is one more than its number of
+   * trailing zeros.  Nothing is shared between threads or lists.
+   */
+  public static final HeightGenerator DEFAULT = new Coins(1, null);
+
+  /**
+   * Build a generator like DEFAULT that produces the same heights every
+   * time for the same seed, for reproducible benchmarks.  It keeps its
+   * own state, so it should not be shared between threads.
+   */
+  public static HeightGenerator seeded(long seed) {
+    return new Coins(1, new SplitMix(seed));
+  } // seeded(long)
+
+  /**
+   * Build a generator for an arbitrary probability.  When prob is a power
+   * of 1/2, say 2^-k, we still use one random long, counting k trailing
+   * zeros per level.  Otherwise, rather than flipping one biased coin per
+   * level, we draw a single uniform u and invert the geometric
+   * distribution: the height is 1 + floor(log(u) / log(prob)).
+   *
+   * @throws IllegalArgumentException unless 0 < prob < 1.
+   */
+  public static HeightGenerator geometric(double prob) {
+    int k = halvings(checkProb(prob));
+    return (k > 0) ? new Coins(k, null) : new Geometric(prob, null);
+  } // geometric(double)
+
+  /**
+   * Build a seeded generator for an arbitrary probability, combining
+   * seeded and geometric.
+   *
+   * @throws IllegalArgumentException unless 0 < prob < 1.
+   */
+  public static HeightGenerator geometric(double prob, long seed) {
+    int k = halvings(checkProb(prob));
+    SplitMix bits = new SplitMix(seed);
+    return (k > 0) ? new Coins(k, bits) : new Geometric(prob, bits);
+  } // geometric(double, long)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make sure prob is a usable probability.
+   *
+   * @throws IllegalArgumentException if it is not.
+   */
+  static double checkProb(double prob) {
+    if (!((prob > 0) && (prob < 1))) {
+      throw new IllegalArgumentException("bad probability: " + prob);
+    } // if
+    return prob;
+  } // checkProb(double)
+
+  /**
+   * Find the k for which prob is 2^-k, or 0 if there is no such k (or it
+   * is too large to count in one long).
+   */
+  static int halvings(double prob) {
+    int k = -Math.getExponent(prob);
+    return ((k <= 32) && (prob == Math.scalb(1.0, -k))) ? k : 0;
+  } // halvings(double)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * Heights for probability 2^-k: each level takes k zero bits of a random
+   * long.  Random bits come from the calling thread's generator, or from
+   * our own if we were given one.
+   */
+  static class Coins implements HeightGenerator {
+    final int k;
+    final SplitMix bits;
+
+    Coins(int k, SplitMix bits) {
+      this.k = k;
+      this.bits = bits;
+    } // Coins(int, SplitMix)
+
+    @Override
+    public int nextHeight(int max) {
+      long random = (bits == null) ? ThreadLocalRandom.current().nextLong() : bits.nextLong();
+      return Math.min(Long.numberOfTrailingZeros(random) / k + 1, max);
+    } // nextHeight(int)
+
+    @Override
+    public double prob() {
+      return Math.scalb(1.0, -k);
+    } // prob()
+  } // class Coins
+
+  /**
+   * Heights for any other probability, by inverting the distribution.
+   */
+  static class Geometric implements HeightGenerator {
+    final double prob;
+    final double scale;
+    final SplitMix bits;
+
+    Geometric(double prob, SplitMix bits) {
+      this.prob = prob;
+      this.scale = 1.0 / Math.log(prob);
+      this.bits = bits;
+    } // Geometric(double, SplitMix)
+
+    @Override
+    public int nextHeight(int max) {
+      double random = (bits == null) ? ThreadLocalRandom.current().nextDouble() : bits.nextDouble();
+      // 1 - random is in (0, 1], so its log is finite
+      return (int) Math.min(Math.log(1.0 - random) * scale + 1, max);
+    } // nextHeight(int)
+
+    @Override
+    public double prob() {
+      return prob;
+    } // prob()
+  } // class Geometric
+
+  /**
+   * A small, fast, seedable generator (Steele, Lea and Flood's SplitMix64).
+   * Unlike java.util.Random it does no synchronization.
+   */
+  static class SplitMix {
+    long state;
+
+    SplitMix(long seed) {
+      this.state = seed;
+    } // SplitMix(long)
+
+    long nextLong() {
+      long z = (state += 0x9E3779B97F4A7C15L);
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    } // nextLong()
+
+    /**
+     * A uniform double in [0, 1).
+     */
+    double nextDouble() {
+      return (nextLong() >>> 11) * 0x1.0p-53;
+    } // nextDouble()
+  } // class SplitMix
+
+} // interface HeightGenerator
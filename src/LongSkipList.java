@@ -0,0 +1,326 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A skip list keyed by longs.  It offers the same operations as SimpleMap,
+ * but keys are stored in a long field of each node and compared with <, so
+ * nothing is boxed and no comparator is called.
+ */
+public class LongSkipList<V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The initial height of the skip list.  front grows as taller nodes
+   * arrive.
+   */
+  static final int INITIAL_HEIGHT = 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Pointers to all the front elements.
+   */
+  LongSLNode<V>[] front;
+
+  /**
+   * The number of values in the list.
+   */
+  int size;
+
+  /**
+   * The index of the highest level that holds any node.
+   */
+  int highestLevel;
+
+  /**
+   * Where the heights of new nodes come from.
+   */
+  HeightGenerator heights = HeightGenerator.DEFAULT;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, skip list.
+   */
+  @SuppressWarnings("unchecked")
+  public LongSkipList() {
+    this.front = (LongSLNode<V>[]) new LongSLNode[INITIAL_HEIGHT];
+    this.size = 0;
+    this.highestLevel = 0;
+  } // LongSkipList()
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  /**
+   * Set the value associated with key.
+   *
+   * @return the previous value associated with key (or null, if there's no such value)
+   */
+  public V set(long key, V value) {
+    LongSLNode<V>[] nodes = this.getNodes(key);
+    LongSLNode<V> node = this.next(nodes[0], 0);
+
+    // if key is already present
+    if ((node != null) && (node.key == key)) {
+      V tmp = node.value;
+      node.value = value;
+      return tmp;
+    } // if key is already present
+
+    int h = randomHeight();
+    LongSLNode<V> newnode = new LongSLNode<V>(key, value, h);
+    if (h > front.length) {
+      this.front = Arrays.copyOf(front, h);
+    } // if
+    if (h - 1 > this.highestLevel) {
+      this.highestLevel = h - 1;
+    } // if
+
+    for (int i = 0; i < h; i++) {
+      LongSLNode<V> prev = (i < nodes.length) ? nodes[i] : null;
+      newnode.next[i] = this.next(prev, i);
+      if (prev == null) {
+        front[i] = newnode;
+      } else {
+        prev.next[i] = newnode;
+      } // if/else
+    } // for
+    this.size++;
+    return null;
+  } // set(long, V)
+
+  /**
+   * Get the value associated with key.
+   *
+   * @throws IndexOutOfBoundsException if the key is not in the map.
+   */
+  public V get(long key) {
+    LongSLNode<V> node = search(key);
+    if ((node != null) && (node.key == key)) {
+      return node.value;
+    } else {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if/else
+  } // get(long)
+
+  /**
+   * Determine how many values are in the map.
+   */
+  public int size() {
+    return this.size;
+  } // size()
+
+  /**
+   * Determine if a key appears in the table.
+   */
+  public boolean containsKey(long key) {
+    LongSLNode<V> node = search(key);
+    return (node != null) && (node.key == key);
+  } // containsKey(long)
+
+  /**
+   * Remove the value with the given key.
+   *
+   * @return The associated value (or null, if there is no associated value).
+   */
+  public V remove(long key) {
+    LongSLNode<V>[] nodes = this.getNodes(key);
+    LongSLNode<V> node = this.next(nodes[0], 0);
+    if ((node == null) || (node.key != key)) {
+      return null;
+    } // if
+    for (int i = 0; i < node.next.length; i++) {
+      if (nodes[i] == null) {
+        front[i] = node.next[i];
+      } else {
+        nodes[i].next[i] = node.next[i];
+      } // if/else
+    } // for
+    while ((highestLevel > 0) && (front[highestLevel] == null)) {
+      highestLevel--;
+    } // while
+    this.size--;
+    return node.value;
+  } // remove(long)
+
+  /**
+   * Get an iterator for all of the keys in the map.
+   */
+  public PrimitiveIterator.OfLong keys() {
+    return new PrimitiveIterator.OfLong() {
+      LongSLNode<V> next = front[0];
+
+      @Override
+      public boolean hasNext() {
+        return this.next != null;
+      } // hasNext()
+
+      @Override
+      public long nextLong() {
+        if (this.next == null) {
+          throw new NoSuchElementException();
+        } // if
+        long key = this.next.key;
+        this.next = this.next.next[0];
+        return key;
+      } // nextLong()
+    };
+  } // keys()
+
+  /**
+   * Get an iterator for all of the values in the map.
+   */
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      LongSLNode<V> next = front[0];
+
+      @Override
+      public boolean hasNext() {
+        return this.next != null;
+      } // hasNext()
+
+      @Override
+      public V next() {
+        if (this.next == null) {
+          throw new NoSuchElementException();
+        } // if
+        V value = this.next.value;
+        this.next = this.next.next[0];
+        return value;
+      } // next()
+    };
+  } // values()
+
+  /**
+   * Apply a function to each key/value pair.
+   */
+  public void forEach(LongEntryConsumer<? super V> action) {
+    for (LongSLNode<V> node = front[0]; node != null; node = node.next[0]) {
+      action.accept(node.key, node.value);
+    } // for
+  } // forEach(LongEntryConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Choose how the heights of new nodes are picked.
+   */
+  public void setHeightGenerator(HeightGenerator heights) {
+    if (heights == null) {
+      throw new NullPointerException("null generator");
+    } // if
+    this.heights = heights;
+  } // setHeightGenerator(HeightGenerator)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Pick a random height for a new node, adding at most one level.
+   */
+  int randomHeight() {
+    return heights.nextHeight(this.highestLevel + 2);
+  } // randomHeight()
+
+  /**
+   * Find the last node before key on each level (null meaning front).
+   */
+  @SuppressWarnings("unchecked")
+  LongSLNode<V>[] getNodes(long key) {
+    LongSLNode<V>[] nodes = (LongSLNode<V>[]) new LongSLNode[front.length];
+    LongSLNode<V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      LongSLNode<V> next = this.next(node, i);
+      while (next != null && next.key < key) {
+        node = next;
+        next = node.next[i];
+      } // while
+      nodes[i] = node;
+    } // for
+    return nodes;
+  } // getNodes(long)
+
+  /**
+   * Find the first node whose key is not less than key (or null).
+   */
+  LongSLNode<V> search(long key) {
+    LongSLNode<V> node = null;
+    LongSLNode<V> next = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      next = this.next(node, i);
+      while (next != null && next.key < key) {
+        node = next;
+        next = node.next[i];
+      } // while
+    } // for
+    return next;
+  } // search(long)
+
+  /**
+   * Get the node that follows node at the specified level, treating a null
+   * node as the front of the list.
+   */
+  LongSLNode<V> next(LongSLNode<V> node, int level) {
+    return (node == null) ? front[level] : node.next[level];
+  } // next(LongSLNode<V>, int)
+
+  // +-------------------+-------------------------------------------
+  // | Nested Interfaces |
+  // +-------------------+
+
+  /**
+   * Something that accepts a long key and its value.
+   */
+  @FunctionalInterface
+  public interface LongEntryConsumer<V> {
+    void accept(long key, V value);
+  } // interface LongEntryConsumer<V>
+
+} // class LongSkipList
+
+
+/**
+ * Nodes in a LongSkipList.
+ */
+class LongSLNode<V> {
+
+  /**
+   * The key.
+   */
+  final long key;
+
+  /**
+   * The value.
+   */
+  V value;
+
+  /**
+   * Pointers to the next nodes, one per level of the node's tower.
+   */
+  LongSLNode<V>[] next;
+
+  /**
+   * Create a new node of height n with the specified key and value.
+   */
+  @SuppressWarnings("unchecked")
+  LongSLNode(long key, V value, int n) {
+    this.key = key;
+    this.value = value;
+    this.next = (LongSLNode<V>[]) new LongSLNode[n];
+  } // LongSLNode(long, V, int)
+
+} // class LongSLNode<V>
@@ -0,0 +1,72 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An OffHeapArena whose chunks are consecutive regions of a memory-mapped
+ * file, so that whatever is stored in it survives the process.  Chunk i
+ * covers bytes [i * 2^chunkBits, (i + 1) * 2^chunkBits) of the file, and
+ * the file grows a chunk at a time.
+ */
+public class MappedArena extends OffHeapArena {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The file we map.
+   */
+  final FileChannel channel;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an arena over channel with chunks of 2^chunkBits bytes.  The
+   * first reserved bytes of the file are never handed out, and every
+   * chunk the file already holds is mapped.
+   */
+  public MappedArena(FileChannel channel, int chunkBits, int reserved) throws IOException {
+    super(chunkBits);
+    this.channel = channel;
+    this.top = reserved;
+    long chunks = (channel.size() + (1L << chunkBits) - 1) >>> chunkBits;
+    for (int i = 0; i < Math.max(1, chunks); i++) {
+      this.chunks.add(newChunk(i, 1 << chunkBits));
+    } // for
+  } // MappedArena(FileChannel, int, int)
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Write everything in the arena back to the file.
+   */
+  public void force() {
+    for (ByteBuffer chunk : chunks) {
+      ((MappedByteBuffer) chunk).force();
+    } // for
+  } // force()
+
+  /**
+   * Write length bytes starting at address back to the file.
+   */
+  public void force(long address, int length) {
+    ((MappedByteBuffer) buffer(address)).force(offset(address), length);
+  } // force(long, int)
+
+  @Override
+  ByteBuffer newChunk(int index, int size) {
+    try {
+      return channel.map(FileChannel.MapMode.READ_WRITE, ((long) index) << chunkBits, size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // newChunk(int, int)
+
+} // class MappedArena
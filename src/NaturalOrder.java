@@ -0,0 +1,65 @@
+import java.util.Comparator;
+
+/**
+ * Comparators for keys in their natural order.  String, Integer and Long
+ * get comparators of their own, which compare values directly instead of
+ * going through Comparable.compareTo; other Comparable classes use
+ * compareTo.
+ */
+public class NaturalOrder {
+
+  // +-----------------+---------------------------------------------
+  // | Standard values |
+  // +-----------------+
+
+  /**
+   * Strings, by String.compareTo.
+   */
+  public static final Comparator<String> STRING = (s1, s2) -> s1.compareTo(s2);
+
+  /**
+   * Integers, by value.
+   */
+  public static final Comparator<Integer> INTEGER =
+      (i1, i2) -> Integer.compare(i1.intValue(), i2.intValue());
+
+  /**
+   * Longs, by value.
+   */
+  public static final Comparator<Long> LONG =
+      (l1, l2) -> Long.compare(l1.longValue(), l2.longValue());
+
+  /**
+   * Anything Comparable, by compareTo.  Keys that are not Comparable fail
+   * with a ClassCastException when they are first compared.
+   */
+  @SuppressWarnings("unchecked")
+  public static final Comparator<Object> COMPARABLE =
+      (k1, k2) -> ((Comparable<Object>) k1).compareTo(k2);
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Get the comparator for keys of class keyType.
+   *
+   * @throws IllegalArgumentException if keyType is not Comparable.
+   */
+  @SuppressWarnings("unchecked")
+  public static <K> Comparator<K> of(Class<K> keyType) {
+    if (keyType == String.class) {
+      return (Comparator<K>) STRING;
+    } else if (keyType == Integer.class) {
+      return (Comparator<K>) INTEGER;
+    } else if (keyType == Long.class) {
+      return (Comparator<K>) LONG;
+    } else if (Comparable.class.isAssignableFrom(keyType)) {
+      return (Comparator<K>) COMPARABLE;
+    } else {
+      throw new IllegalArgumentException(keyType.getName()
+          + " keys have no natural order; supply a Comparator");
+    } // if/else
+  } // of(Class<K>)
+
+} // class NaturalOrder
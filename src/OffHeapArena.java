@@ -0,0 +1,127 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Memory outside the Java heap, handed out in fixed-size pieces and
+ * addressed by longs.  The arena is a list of direct ByteBuffer chunks;
+ * an address holds the chunk number in its high bits and the offset
+ * within the chunk in its low bits.  No allocation spans two chunks, and
+ * address 0 is never handed out, so it can serve as null.
+ *
+ * The garbage collector sees only the chunks, however many pieces they
+ * hold.
+ */
+public class OffHeapArena {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default size of each chunk (64 MB).
+   */
+  static final int DEFAULT_CHUNK_BITS = 26;
+
+  /**
+   * The address that means "no piece".
+   */
+  public static final long NULL = 0;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * log2 of the chunk size.
+   */
+  final int chunkBits;
+
+  /**
+   * The chunks of memory.
+   */
+  final ArrayList<ByteBuffer> chunks;
+
+  /**
+   * The address of the first byte that has never been handed out.
+   */
+  long top;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an arena with chunks of 2^chunkBits bytes.
+   */
+  public OffHeapArena(int chunkBits) {
+    if ((chunkBits < 10) || (chunkBits > 30)) {
+      throw new IllegalArgumentException("chunk bits must be between 10 and 30");
+    } // if
+    this.chunkBits = chunkBits;
+    this.chunks = new ArrayList<ByteBuffer>();
+    this.top = Long.BYTES; // keep address 0 free, to mean null
+  } // OffHeapArena(int)
+
+  /**
+   * Create an arena with 64 MB chunks.
+   */
+  public OffHeapArena() {
+    this(DEFAULT_CHUNK_BITS);
+  } // OffHeapArena()
+
+  // +---------+-----------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Hand out size bytes of fresh memory.
+   *
+   * @throws IllegalArgumentException if size is larger than a chunk.
+   */
+  public long allocate(int size) {
+    long chunkSize = 1L << chunkBits;
+    if (size > chunkSize) {
+      throw new IllegalArgumentException("piece larger than a chunk: " + size);
+    } // if
+    if ((top & (chunkSize - 1)) + size > chunkSize) {
+      // skip the rest of the chunk
+      top = ((top >>> chunkBits) + 1) << chunkBits;
+    } // if
+    long address = top;
+    top += size;
+    while (chunks.size() <= ((top - 1) >>> chunkBits)) {
+      chunks.add(newChunk(chunks.size(), (int) chunkSize));
+    } // while
+    return address;
+  } // allocate(int)
+
+  /**
+   * Get the chunk that holds address.
+   */
+  public ByteBuffer buffer(long address) {
+    return chunks.get((int) (address >>> chunkBits));
+  } // buffer(long)
+
+  /**
+   * Get the position of address within its chunk.
+   */
+  public int offset(long address) {
+    return (int) (address & ((1L << chunkBits) - 1));
+  } // offset(long)
+
+  /**
+   * Determine how many bytes of chunks the arena holds.
+   */
+  public long capacity() {
+    return ((long) chunks.size()) << chunkBits;
+  } // capacity()
+
+  /**
+   * Make a new chunk.  (Subclasses may back chunks with something other
+   * than plain direct memory.)
+   */
+  ByteBuffer newChunk(int index, int size) {
+    return ByteBuffer.allocateDirect(size);
+  } // newChunk(int, int)
+
+} // class OffHeapArena
@@ -0,0 +1,473 @@
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * A skip list whose nodes live outside the Java heap, in an OffHeapArena.
+ * Keys and values are stored through Serializers, in fixed-width slots,
+ * and links are arena addresses rather than references.  The search is
+ * the same as in SkipList, only over addresses, so the garbage collector
+ * has nothing to trace however large the list grows.  Searches compare
+ * through Serializer.compare, so with Integer or Long keys in their
+ * natural order (NaturalOrder.INTEGER or NaturalOrder.LONG) they compare
+ * the stored numbers directly instead of reading each key back.
+ *
+ * Each node is laid out as
+ *
+ *   byte     height
+ *   byte     flags (FLAG_NULL_VALUE if the value is null)
+ *   2 bytes  unused
+ *   key      keySerializer.width() bytes
+ *   value    valueSerializer.width() bytes
+ *   long[]   height links to the next nodes (0 meaning none)
+ *
+ * Removed nodes go on a free list for their height and are reused by
+ * later insertions of that height.
+ */
+public class OffHeapSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The maximum height of a node.
+   */
+  static final int MAX_HEIGHT = 32;
+
+  /**
+   * The size of the fixed part of a node, before the key.
+   */
+  static final int HEADER = 4;
+
+  /**
+   * The flag that says a node's value is null.
+   */
+  static final byte FLAG_NULL_VALUE = 1;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * Where the nodes live.
+   */
+  final OffHeapArena arena;
+
+  /**
+   * How we store keys.
+   */
+  final Serializer<K> keySerializer;
+
+  /**
+   * How we store values.
+   */
+  final Serializer<V> valueSerializer;
+
+  /**
+   * The comparator used to determine the ordering in the list.
+   */
+  final Comparator<? super K> comparator;
+
+  /**
+   * Addresses of all the front elements.
+   */
+  final long[] front;
+
+  /**
+   * The first free node of each height (indexed by height - 1).
+   */
+  final long[] free;
+
+  /**
+   * Scratch space for search paths.  (The list is not thread-safe, so one
+   * is enough, and it keeps searches from allocating.)
+   */
+  final long[] path;
+
+  /**
+   * Where the value starts within a node.
+   */
+  final int valueOffset;
+
+  /**
+   * Where the links start within a node.
+   */
+  final int linkOffset;
+
+  /**
+   * The number of values in the list.
+   */
+  int size;
+
+  /**
+   * The index of the highest level that holds any node.
+   */
+  int highestLevel;
+
+  /**
+   * Where the heights of new nodes come from.
+   */
+  HeightGenerator heights = HeightGenerator.DEFAULT;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new skip list in arena.
+   */
+  public OffHeapSkipList(OffHeapArena arena, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer, Comparator<? super K> comparator) {
+    this.arena = arena;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.comparator = comparator;
+    this.front = new long[MAX_HEIGHT];
+    this.free = new long[MAX_HEIGHT];
+    this.path = new long[MAX_HEIGHT];
+    this.valueOffset = HEADER + keySerializer.width();
+    this.linkOffset = valueOffset + valueSerializer.width();
+    this.size = 0;
+    this.highestLevel = 0;
+  } // OffHeapSkipList(OffHeapArena, Serializer<K>, Serializer<V>, Comparator<K>)
+
+  /**
+   * Create a new skip list in a fresh arena.
+   */
+  public OffHeapSkipList(Serializer<K> keySerializer, Serializer<V> valueSerializer,
+      Comparator<? super K> comparator) {
+    this(new OffHeapArena(), keySerializer, valueSerializer, comparator);
+  } // OffHeapSkipList(Serializer<K>, Serializer<V>, Comparator<K>)
+
+  /**
+   * Create a new skip list in a fresh arena, ordering keys of class
+   * keyType in their natural order (see NaturalOrder).
+   *
+   * @throws IllegalArgumentException if keyType is not Comparable.
+   */
+  public OffHeapSkipList(Serializer<K> keySerializer, Serializer<V> valueSerializer,
+      Class<K> keyType) {
+    this(keySerializer, valueSerializer, NaturalOrder.of(keyType));
+  } // OffHeapSkipList(Serializer<K>, Serializer<V>, Class<K>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+
+    long[] nodes = this.getNodes(key);
+    long node = this.next(nodes[0], 0);
+
+    // if key is already present
+    if ((node != OffHeapArena.NULL) && (compareKey(node, key) == 0)) {
+      V tmp = value(node);
+      changing(nodes, 0, node);
+      setValue(node, value);
+      return tmp;
+    } // if key is already present
+
+    int top = this.highestLevel;
+    int h = randomHeight();
+    long newnode = allocateNode(h);
+    changing(nodes, Math.min(h, top + 1), newnode);
+    ByteBuffer buf = arena.buffer(newnode);
+    int offset = arena.offset(newnode);
+    buf.put(offset, (byte) h);
+    try {
+      keySerializer.write(buf, offset + HEADER, key);
+      setValue(newnode, value);
+    } catch (IllegalArgumentException e) {
+      // the key or value doesn't fit, so give the space back
+      setNext(newnode, 0, free[h - 1]);
+      free[h - 1] = newnode;
+      throw e;
+    } // try/catch
+    if (h - 1 > this.highestLevel) {
+      this.highestLevel = h - 1;
+    } // if
+
+    for (int i = 0; i < h; i++) {
+      long prev = (i <= top) ? nodes[i] : OffHeapArena.NULL;
+      setNext(newnode, i, this.next(prev, i));
+      if (prev == OffHeapArena.NULL) {
+        front[i] = newnode;
+      } else {
+        setNext(prev, i, newnode);
+      } // if/else
+    } // for
+    this.size++;
+    return null;
+  } // set(K, V)
+
+  @Override
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    long node = search(key);
+    if ((node != OffHeapArena.NULL) && (compareKey(node, key) == 0)) {
+      return value(node);
+    } else {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if/else
+  } // get(K)
+
+  @Override
+  public int size() {
+    return this.size;
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    long node = search(key);
+    return (node != OffHeapArena.NULL) && (compareKey(node, key) == 0);
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    long[] nodes = this.getNodes(key);
+    long node = this.next(nodes[0], 0);
+    if ((node == OffHeapArena.NULL) || (compareKey(node, key) != 0)) {
+      return null;
+    } // if
+
+    V value = value(node);
+    int h = height(node);
+    changing(nodes, h, node);
+    for (int i = 0; i < h; i++) {
+      if (nodes[i] == OffHeapArena.NULL) {
+        front[i] = next(node, i);
+      } else {
+        setNext(nodes[i], i, next(node, i));
+      } // if/else
+    } // for
+    while ((this.highestLevel > 0) && (front[this.highestLevel] == OffHeapArena.NULL)) {
+      this.highestLevel--;
+    } // while
+
+    // recycle the node
+    setNext(node, 0, free[h - 1]);
+    free[h - 1] = node;
+    this.size--;
+    return value;
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      long next = front[0];
+
+      @Override
+      public boolean hasNext() {
+        return this.next != OffHeapArena.NULL;
+      } // hasNext()
+
+      @Override
+      public K next() {
+        if (this.next == OffHeapArena.NULL) {
+          throw new NoSuchElementException();
+        } // if
+        K key = key(this.next);
+        this.next = OffHeapSkipList.this.next(this.next, 0);
+        return key;
+      } // next()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      long next = front[0];
+
+      @Override
+      public boolean hasNext() {
+        return this.next != OffHeapArena.NULL;
+      } // hasNext()
+
+      @Override
+      public V next() {
+        if (this.next == OffHeapArena.NULL) {
+          throw new NoSuchElementException();
+        } // if
+        V value = value(this.next);
+        this.next = OffHeapSkipList.this.next(this.next, 0);
+        return value;
+      } // next()
+    };
+  } // values()
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    for (long node = front[0]; node != OffHeapArena.NULL; node = next(node, 0)) {
+      action.accept(key(node), value(node));
+    } // for
+  } // forEach(BiConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Determine how many bytes of memory the list holds outside the heap.
+   */
+  public long offHeapBytes() {
+    return arena.capacity();
+  } // offHeapBytes()
+
+  /**
+   * Choose how the heights of new nodes are picked.
+   */
+  public void setHeightGenerator(HeightGenerator heights) {
+    if (heights == null) {
+      throw new NullPointerException("null generator");
+    } // if
+    this.heights = heights;
+  } // setHeightGenerator(HeightGenerator)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Pick a random height for a new node, adding at most one level.
+   */
+  int randomHeight() {
+    return heights.nextHeight(Math.min(this.highestLevel + 2, MAX_HEIGHT));
+  } // randomHeight()
+
+  /**
+   * Get space for a node of height h, reusing a removed one if we can.
+   */
+  long allocateNode(int h) {
+    long node = free[h - 1];
+    if (node != OffHeapArena.NULL) {
+      free[h - 1] = next(node, 0);
+      return node;
+    } // if
+    return arena.allocate(linkOffset + h * Long.BYTES);
+  } // allocateNode(int)
+
+  /**
+   * Note that set or remove is about to write to node and to the first
+   * levels nodes of a search path (NULL, as ever, meaning none or the
+   * front).  Nothing else in the arena changes.  Subclasses that must
+   * know what changes, such as PersistentSkipList, override this.
+   */
+  void changing(long[] nodes, int levels, long node) {
+  } // changing(long[], int, long)
+
+  /**
+   * Find the last node before key on each level (NULL meaning front).
+   * The result is shared scratch space, valid until the next search.
+   */
+  long[] getNodes(K key) {
+    long[] nodes = this.path;
+    long node = OffHeapArena.NULL;
+    for (int i = highestLevel; i >= 0; i--) {
+      long next = this.next(node, i);
+      while ((next != OffHeapArena.NULL) && (compareKey(next, key) < 0)) {
+        node = next;
+        next = this.next(node, i);
+      } // while
+      nodes[i] = node;
+    } // for
+    return nodes;
+  } // getNodes(K)
+
+  /**
+   * Find the first node whose key is not less than key (or NULL).
+   */
+  long search(K key) {
+    long node = OffHeapArena.NULL;
+    long next = OffHeapArena.NULL;
+    for (int i = highestLevel; i >= 0; i--) {
+      next = this.next(node, i);
+      while ((next != OffHeapArena.NULL) && (compareKey(next, key) < 0)) {
+        node = next;
+        next = this.next(node, i);
+      } // while
+    } // for
+    return next;
+  } // search(K)
+
+  /**
+   * Get the node that follows node at the specified level, treating NULL as
+   * the front of the list.
+   */
+  long next(long node, int level) {
+    if (node == OffHeapArena.NULL) {
+      return front[level];
+    } // if
+    return arena.buffer(node).getLong(arena.offset(node) + linkOffset + level * Long.BYTES);
+  } // next(long, int)
+
+  /**
+   * Set the node that follows node at the specified level.
+   */
+  void setNext(long node, int level, long next) {
+    arena.buffer(node).putLong(arena.offset(node) + linkOffset + level * Long.BYTES, next);
+  } // setNext(long, int, long)
+
+  /**
+   * Get the height of node.
+   */
+  int height(long node) {
+    return arena.buffer(node).get(arena.offset(node));
+  } // height(long)
+
+  /**
+   * Get the key of node.
+   */
+  K key(long node) {
+    return keySerializer.read(arena.buffer(node), arena.offset(node) + HEADER);
+  } // key(long)
+
+  /**
+   * Compare the key of node with key.
+   */
+  int compareKey(long node, K key) {
+    return keySerializer.compare(arena.buffer(node), arena.offset(node) + HEADER, key,
+        comparator);
+  } // compareKey(long, K)
+
+  /**
+   * Get the value of node.
+   */
+  V value(long node) {
+    ByteBuffer buf = arena.buffer(node);
+    int offset = arena.offset(node);
+    if (buf.get(offset + 1) == FLAG_NULL_VALUE) {
+      return null;
+    } // if
+    return valueSerializer.read(buf, offset + valueOffset);
+  } // value(long)
+
+  /**
+   * Set the value of node.
+   */
+  void setValue(long node, V value) {
+    ByteBuffer buf = arena.buffer(node);
+    int offset = arena.offset(node);
+    if (value == null) {
+      buf.put(offset + 1, FLAG_NULL_VALUE);
+    } else {
+      valueSerializer.write(buf, offset + valueOffset, value);
+      buf.put(offset + 1, (byte) 0);
+    } // if/else
+  } // setValue(long, V)
+
+} // class OffHeapSkipList<K,V>
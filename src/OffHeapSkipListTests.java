@@ -0,0 +1,122 @@
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests of off-heap skip lists, checked against a TreeMap.
+ */
+public class OffHeapSkipListTests {
+
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  /**
+   * Build an empty list of integers to short strings, with small chunks so
+   * that the tests cross chunk boundaries.
+   */
+  static OffHeapSkipList<Integer, String> ints() {
+    return new OffHeapSkipList<Integer, String>(new OffHeapArena(12), Serializer.INTEGER,
+        Serializer.string(16), (i, j) -> Integer.compare(i, j));
+  } // ints()
+
+  @Test
+  public void basicTest() {
+    OffHeapSkipList<Integer, String> list = ints();
+    assertFalse(list.containsKey(1));
+    assertNull(list.set(1, "one"));
+    assertEquals("one", list.set(1, "uno"));
+    assertEquals("uno", list.get(1));
+    assertNull(list.set(2, null));
+    assertTrue(list.containsKey(2));
+    assertNull(list.get(2));
+    assertEquals("uno", list.remove(1));
+    assertNull(list.remove(1));
+    assertEquals(1, list.size());
+    try {
+      list.set(3, "this string is far too long");
+      fail("set accepted a value that does not fit");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } // try/catch
+    assertFalse(list.containsKey(3));
+  } // basicTest()
+
+  @Test
+  public void randomTest() {
+    OffHeapSkipList<Integer, String> list = ints();
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(2000);
+      if (random.nextInt(3) > 0) {
+        String value = Integer.toString(i);
+        assertEquals(expected.put(key, value), list.set(key, value));
+      } else {
+        assertEquals(expected.remove(key), list.remove(key));
+      } // if/else
+      assertEquals(expected.size(), list.size());
+    } // for
+    Iterator<Integer> keys = list.keys();
+    Iterator<String> values = list.values();
+    for (Integer key : expected.keySet()) {
+      assertEquals(key, keys.next());
+      assertEquals(expected.get(key), values.next());
+      assertEquals(expected.get(key), list.get(key));
+    } // for
+    assertFalse(keys.hasNext());
+  } // randomTest()
+
+  @Test
+  public void stringKeyTest() {
+    OffHeapSkipList<String, Long> list = new OffHeapSkipList<String, Long>(
+        Serializer.string(32), Serializer.LONG, (s, t) -> s.compareTo(t));
+    String[] words = {"pear", "apple", "fig", "\u00e9clair", "banana"};
+    for (int i = 0; i < words.length; i++) {
+      list.set(words[i], (long) i);
+    } // for
+    ArrayList<String> seen = new ArrayList<String>();
+    list.forEach((key, value) -> seen.add(key + "=" + value));
+    assertEquals("[apple=1, banana=4, fig=2, pear=0, \u00e9clair=3]", seen.toString());
+  } // stringKeyTest()
+
+  /**
+   * Long keys in natural order compare the stored bytes directly; other
+   * orders read the keys back.  Both must agree with a TreeMap, negative
+   * keys included.
+   */
+  @Test
+  public void numericOrderTest() {
+    OffHeapSkipList<Long, Long> natural = new OffHeapSkipList<Long, Long>(
+        Serializer.LONG, Serializer.LONG, Long.class);
+    OffHeapSkipList<Long, Long> reversed = new OffHeapSkipList<Long, Long>(
+        Serializer.LONG, Serializer.LONG, (i, j) -> Long.compare(j, i));
+    TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+    for (int i = 0; i < 5000; i++) {
+      long key = random.nextLong() >> random.nextInt(64);
+      if (random.nextInt(4) == 0) {
+        assertEquals(expected.remove(key), natural.remove(key));
+        reversed.remove(key);
+      } else {
+        assertEquals(expected.put(key, (long) i), natural.set(key, (long) i));
+        reversed.set(key, (long) i);
+      } // if/else
+    } // for
+    Iterator<Long> keys = natural.keys();
+    Iterator<Long> backwards = reversed.keys();
+    for (Long key : expected.keySet()) {
+      assertEquals(key, keys.next());
+      assertEquals(expected.get(key), natural.get(key));
+      assertTrue(natural.containsKey(key));
+    } // for
+    for (Long key : expected.descendingKeySet()) {
+      assertEquals(key, backwards.next());
+    } // for
+    assertFalse(keys.hasNext());
+    assertFalse(backwards.hasNext());
+  } // numericOrderTest()
+
+} // class OffHeapSkipListTests
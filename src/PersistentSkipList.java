@@ -0,0 +1,450 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+
+/**
+ * An OffHeapSkipList kept in a memory-mapped file, so that it can be
+ * closed and reopened.  Reopening reads a header and maps the file; it
+ * does not look at the entries, so it takes the same time however many
+ * there are (plus the time to undo whatever changed after the last
+ * flush, if the list was not closed cleanly).
+ *
+ * File layout.  The file is a sequence of chunks of 2^chunkBits bytes
+ * (see MappedArena).  Every offset below is a byte position in the file,
+ * and every link is the file position of a node, or 0 for none.
+ *
+ *   headers (two copies, at 0 and at HEADER_SIZE in chunk 0):
+ *      0  long    MAGIC
+ *      8  int     VERSION
+ *     12  int     chunkBits
+ *     16  int     key width
+ *     20  int     value width
+ *     24  long    top: the first byte never allocated
+ *     32  int     size
+ *     36  int     highestLevel
+ *     40  long    epoch: how many times the list has been flushed
+ *     48  long[]  front: the first node on each of the MAX_HEIGHT levels
+ *    304  long[]  free: the first free node of each height
+ *    560  long    CRC32 of bytes 0 .. 559
+ *
+ *   nodes (from 2 * HEADER_SIZE on, never crossing a chunk boundary): as
+ *   in OffHeapSkipList.  Following front[0] and then each node's level-0
+ *   link visits every entry in order; the higher links are the towers.
+ *
+ * Consistency.  Alongside the file we keep an undo log, in the same
+ * directory with ".undo" added to the name.  Before set or remove first
+ * writes to a node that was already there at the last flush, it appends
+ * the node's old bytes to the log, tagged with the current epoch, and
+ * forces the log (once per operation, and only when such a node is
+ * new to the log).  flush() forces every changed page, then writes the
+ * header for the next epoch into the copy the last flush did not use,
+ * forces it, and empties the log.  Opening picks the valid header with
+ * the larger epoch and copies back every logged node of that epoch, so
+ * after a crash at any point the list is just as it was at its last
+ * flush: a torn header leaves the other copy, and a log record only
+ * counts if its checksum does.
+ */
+public class PersistentSkipList<K, V> extends OffHeapSkipList<K, V> implements Closeable {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Identifies our files ("SKIPLIST" in ASCII).
+   */
+  static final long MAGIC = 0x534B49504C495354L;
+
+  /**
+   * The version of the layout.
+   */
+  static final int VERSION = 2;
+
+  /**
+   * Bytes reserved at the start of the file for each copy of the header.
+   */
+  static final int HEADER_SIZE = 1024;
+
+  /**
+   * The suffix of the undo log's name.
+   */
+  static final String UNDO_SUFFIX = ".undo";
+
+  /**
+   * Bytes in an undo record besides the node: epoch, address, length and
+   * CRC32.
+   */
+  static final int RECORD_OVERHEAD = 2 * Long.BYTES + Integer.BYTES + Long.BYTES;
+
+  /**
+   * Where each header field lives.
+   */
+  static final int MAGIC_AT = 0;
+  static final int VERSION_AT = 8;
+  static final int CHUNK_BITS_AT = 12;
+  static final int KEY_WIDTH_AT = 16;
+  static final int VALUE_WIDTH_AT = 20;
+  static final int TOP_AT = 24;
+  static final int SIZE_AT = 32;
+  static final int HIGHEST_LEVEL_AT = 36;
+  static final int EPOCH_AT = 40;
+  static final int FRONT_AT = 48;
+  static final int FREE_AT = FRONT_AT + MAX_HEIGHT * Long.BYTES;
+  static final int CRC_AT = FREE_AT + MAX_HEIGHT * Long.BYTES;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The file.
+   */
+  final FileChannel channel;
+
+  /**
+   * The undo log.
+   */
+  final FileChannel undo;
+
+  /**
+   * Whether the list has changed since the last flush.
+   */
+  boolean dirty;
+
+  /**
+   * How many times the list has been flushed.  The header for epoch e
+   * lives in copy e % 2.
+   */
+  long epoch;
+
+  /**
+   * arena.top as of the last flush: nodes below it must be logged before
+   * they change.
+   */
+  long flushedTop;
+
+  /**
+   * The nodes already in the undo log for this epoch.
+   */
+  final HashSet<Long> logged;
+
+  /**
+   * Where the next undo record goes.
+   */
+  long undoEnd;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a list in an arena that has already been set up.
+   */
+  PersistentSkipList(FileChannel channel, FileChannel undo, MappedArena arena,
+      Serializer<K> keySerializer, Serializer<V> valueSerializer,
+      Comparator<? super K> comparator) {
+    super(arena, keySerializer, valueSerializer, comparator);
+    this.channel = channel;
+    this.undo = undo;
+    this.dirty = false;
+    this.logged = new HashSet<Long>();
+  } // PersistentSkipList(FileChannel, FileChannel, MappedArena, ...)
+
+  /**
+   * Open the list stored in file, creating an empty one if the file is
+   * missing or empty.  Uses 64 MB chunks for new files.
+   *
+   * @throws IOException if the file is not a list with these key and value
+   *         widths.
+   */
+  public static <K, V> PersistentSkipList<K, V> open(Path file, Serializer<K> keySerializer,
+      Serializer<V> valueSerializer, Comparator<? super K> comparator) throws IOException {
+    return open(file, OffHeapArena.DEFAULT_CHUNK_BITS, keySerializer, valueSerializer,
+        comparator);
+  } // open(Path, Serializer<K>, Serializer<V>, Comparator<K>)
+
+  /**
+   * Open the list stored in file, as above, with 2^chunkBits-byte chunks
+   * if the file is new.
+   *
+   * @throws IllegalArgumentException if a chunk cannot hold both headers.
+   */
+  public static <K, V> PersistentSkipList<K, V> open(Path file, int chunkBits,
+      Serializer<K> keySerializer, Serializer<V> valueSerializer,
+      Comparator<? super K> comparator) throws IOException {
+    if ((1L << chunkBits) < 2 * HEADER_SIZE) {
+      throw new IllegalArgumentException("chunks too small for the headers: " + chunkBits);
+    } // if
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    FileChannel undo = null;
+    try {
+      undo = FileChannel.open(file.resolveSibling(file.getFileName() + UNDO_SUFFIX),
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      boolean fresh = (channel.size() == 0);
+      if (!fresh) {
+        chunkBits = readChunkBits(channel);
+      } // if
+      MappedArena arena = new MappedArena(channel, chunkBits, 2 * HEADER_SIZE);
+      PersistentSkipList<K, V> list = new PersistentSkipList<K, V>(channel, undo, arena,
+          keySerializer, valueSerializer, comparator);
+      if (fresh) {
+        list.writeHeader();
+        arena.force();
+      } else {
+        list.readHeader();
+        list.rollBack();
+      } // if/else
+      list.startEpoch();
+      return list;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      if (undo != null) {
+        undo.close();
+      } // if
+      throw e;
+    } // try/catch
+  } // open(Path, int, Serializer<K>, Serializer<V>, Comparator<K>)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Make the file match the list, so that it survives a crash.
+   */
+  public void flush() {
+    if (!dirty) {
+      return;
+    } // if
+    MappedArena mapped = (MappedArena) arena;
+    mapped.force();
+    this.epoch++;
+    writeHeader();
+    mapped.force(headerAt(epoch), HEADER_SIZE);
+    this.dirty = false;
+    try {
+      startEpoch();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // flush()
+
+  /**
+   * Flush the list and close the file and its undo log.  The list may not
+   * be used afterwards.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+      undo.close();
+    } // try/finally
+  } // close()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Log the old bytes of every node that set or remove is about to change
+   * and that the last flush wrote, unless this epoch logged it already,
+   * and make the log durable before the change can reach the file.
+   */
+  @Override
+  void changing(long[] nodes, int levels, long node) {
+    this.dirty = true;
+    ByteBuffer records = null;
+    for (int i = -1; i < levels; i++) {
+      long changed = (i < 0) ? node : nodes[i];
+      if ((changed == OffHeapArena.NULL) || (changed >= flushedTop) || !logged.add(changed)) {
+        continue;
+      } // if there is nothing to log
+      int length = linkOffset + height(changed) * Long.BYTES;
+      if (records == null) {
+        records = ByteBuffer.allocate((levels + 1) * (RECORD_OVERHEAD + length));
+      } else if (records.remaining() < RECORD_OVERHEAD + length) {
+        records = ByteBuffer.allocate(2 * records.capacity() + RECORD_OVERHEAD + length)
+            .put(records.flip());
+      } // if/else
+      int start = records.position();
+      records.putLong(epoch).putLong(changed).putInt(length);
+      ByteBuffer buf = arena.buffer(changed).duplicate();
+      int offset = arena.offset(changed);
+      records.put(buf.limit(offset + length).position(offset));
+      CRC32 crc = new CRC32();
+      crc.update(records.duplicate().flip().position(start));
+      records.putLong(crc.getValue());
+    } // for
+    if (records == null) {
+      return;
+    } // if
+    try {
+      records.flip();
+      while (records.hasRemaining()) {
+        undoEnd += undo.write(records, undoEnd);
+      } // while
+      undo.force(false);
+    } catch (IOException e) {
+      // we cannot tell which records made it, so log everything again
+      logged.clear();
+      throw new UncheckedIOException(e);
+    } // try/catch
+  } // changing(long[], int, long)
+
+  /**
+   * Copy back every node logged in the current epoch, so that the file
+   * is once again as the last flush left it, and make that durable.
+   * Reading stops at the first record whose checksum fails: it was being
+   * written when we crashed, so its node had not changed yet.  Records
+   * go back newest first, so if a node was logged twice, the older bytes
+   * win.
+   */
+  void rollBack() throws IOException {
+    ByteBuffer log = ByteBuffer.allocate((int) undo.size());
+    while (log.hasRemaining()) {
+      if (undo.read(log, log.position()) < 0) {
+        break;
+      } // if
+    } // while
+    log.flip();
+    ArrayList<Long> addresses = new ArrayList<Long>();
+    ArrayList<ByteBuffer> nodes = new ArrayList<ByteBuffer>();
+    while (log.remaining() >= RECORD_OVERHEAD) {
+      int start = log.position();
+      long recordEpoch = log.getLong();
+      long address = log.getLong();
+      int length = log.getInt();
+      if ((length < 0) || (log.remaining() < length + Long.BYTES)) {
+        break;
+      } // if the record is torn
+      CRC32 crc = new CRC32();
+      crc.update(log.duplicate().limit(log.position() + length).position(start));
+      ByteBuffer bytes = log.duplicate().limit(log.position() + length);
+      log.position(log.position() + length);
+      if (log.getLong() != crc.getValue()) {
+        break;
+      } // if the record is torn
+      if (recordEpoch == epoch) {
+        addresses.add(address);
+        nodes.add(bytes);
+      } // if the record belongs to the flush we are going back to
+    } // while
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      long address = addresses.get(i);
+      arena.buffer(address).duplicate().position(arena.offset(address)).put(nodes.get(i));
+    } // for
+    if (!nodes.isEmpty()) {
+      ((MappedArena) arena).force();
+    } // if
+  } // rollBack()
+
+  /**
+   * Begin a new epoch, just after a flush or open: the file now matches
+   * the list, so nothing needs undoing.
+   */
+  void startEpoch() throws IOException {
+    undo.truncate(0);
+    this.undoEnd = 0;
+    this.logged.clear();
+    this.flushedTop = arena.top;
+  } // startEpoch()
+
+  /**
+   * Find the copy of the header for the given epoch.
+   */
+  static int headerAt(long epoch) {
+    return (int) (epoch & 1) * HEADER_SIZE;
+  } // headerAt(long)
+
+  /**
+   * Copy the list's bookkeeping into the header for the current epoch.
+   */
+  void writeHeader() {
+    ByteBuffer header = arena.buffer(0).duplicate().position(headerAt(epoch)).slice();
+    header.putLong(MAGIC_AT, MAGIC);
+    header.putInt(VERSION_AT, VERSION);
+    header.putInt(CHUNK_BITS_AT, arena.chunkBits);
+    header.putInt(KEY_WIDTH_AT, keySerializer.width());
+    header.putInt(VALUE_WIDTH_AT, valueSerializer.width());
+    header.putLong(TOP_AT, arena.top);
+    header.putInt(SIZE_AT, size);
+    header.putInt(HIGHEST_LEVEL_AT, highestLevel);
+    header.putLong(EPOCH_AT, epoch);
+    for (int i = 0; i < MAX_HEIGHT; i++) {
+      header.putLong(FRONT_AT + i * Long.BYTES, front[i]);
+      header.putLong(FREE_AT + i * Long.BYTES, free[i]);
+    } // for
+    header.putLong(CRC_AT, crc(header));
+  } // writeHeader()
+
+  /**
+   * Load the list's bookkeeping from the newer of the two headers whose
+   * checksums hold.
+   *
+   * @throws IOException if neither header is whole, or the one we pick
+   *         does not match our serializers.
+   */
+  void readHeader() throws IOException {
+    ByteBuffer header = null;
+    for (int copy = 0; copy < 2; copy++) {
+      ByteBuffer candidate = arena.buffer(0).duplicate().position(copy * HEADER_SIZE).slice();
+      if ((candidate.getLong(MAGIC_AT) == MAGIC) && (candidate.getLong(CRC_AT) == crc(candidate))
+          && ((header == null) || (candidate.getLong(EPOCH_AT) > header.getLong(EPOCH_AT)))) {
+        header = candidate;
+      } // if
+    } // for
+    if (header == null) {
+      throw new IOException("damaged header");
+    } else if (header.getInt(VERSION_AT) != VERSION) {
+      throw new IOException("unknown version " + header.getInt(VERSION_AT));
+    } else if ((header.getInt(KEY_WIDTH_AT) != keySerializer.width())
+        || (header.getInt(VALUE_WIDTH_AT) != valueSerializer.width())) {
+      throw new IOException("file was written with different key or value widths");
+    } // if/else
+    arena.top = header.getLong(TOP_AT);
+    this.size = header.getInt(SIZE_AT);
+    this.highestLevel = header.getInt(HIGHEST_LEVEL_AT);
+    this.epoch = header.getLong(EPOCH_AT);
+    for (int i = 0; i < MAX_HEIGHT; i++) {
+      front[i] = header.getLong(FRONT_AT + i * Long.BYTES);
+      free[i] = header.getLong(FREE_AT + i * Long.BYTES);
+    } // for
+  } // readHeader()
+
+  /**
+   * Read the chunk size recorded in an existing file, from whichever
+   * header copy has it.
+   */
+  static int readChunkBits(FileChannel channel) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(CHUNK_BITS_AT + Integer.BYTES);
+    for (int copy = 0; copy < 2; copy++) {
+      buf.clear();
+      channel.read(buf, copy * HEADER_SIZE);
+      if (buf.getLong(MAGIC_AT) == MAGIC) {
+        return buf.getInt(CHUNK_BITS_AT);
+      } // if
+    } // for
+    throw new IOException("not a skip list file");
+  } // readChunkBits(FileChannel)
+
+  /**
+   * Compute the checksum of the header fields.
+   */
+  static long crc(ByteBuffer header) {
+    CRC32 crc = new CRC32();
+    crc.update(header.duplicate().position(0).limit(CRC_AT));
+    return crc.getValue();
+  } // crc(ByteBuffer)
+
+} // class PersistentSkipList<K,V>
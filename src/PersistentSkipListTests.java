@@ -0,0 +1,171 @@
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests of memory-mapped skip lists.
+ */
+public class PersistentSkipListTests {
+
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  /**
+   * Open the list in file, with small chunks so that the tests cross
+   * chunk boundaries.
+   */
+  static PersistentSkipList<Long, Long> open(Path file) throws IOException {
+    return PersistentSkipList.open(file, 12, Serializer.LONG, Serializer.LONG,
+        (i, j) -> Long.compare(i, j));
+  } // open(Path)
+
+  /**
+   * Delete file and its undo log.
+   */
+  static void delete(Path file) throws IOException {
+    Files.delete(file);
+    Files.deleteIfExists(file.resolveSibling(file.getFileName()
+        + PersistentSkipList.UNDO_SUFFIX));
+  } // delete(Path)
+
+  /**
+   * Drop list as a crash would, without flushing it.
+   */
+  static void crash(PersistentSkipList<Long, Long> list) throws IOException {
+    list.channel.close();
+    list.undo.close();
+  } // crash(PersistentSkipList)
+
+  /**
+   * Make 3000 random changes to list, and to expected unless it is null.
+   */
+  void change(PersistentSkipList<Long, Long> list, TreeMap<Long, Long> expected) {
+    for (int i = 0; i < 3000; i++) {
+      long key = random.nextInt(2000);
+      if (random.nextInt(3) > 0) {
+        list.set(key, (long) i);
+        if (expected != null) {
+          expected.put(key, (long) i);
+        } // if
+      } else {
+        list.remove(key);
+        if (expected != null) {
+          expected.remove(key);
+        } // if
+      } // if/else
+    } // for
+  } // change(PersistentSkipList, TreeMap)
+
+  /**
+   * Make sure list holds exactly the entries in expected.
+   */
+  static void check(TreeMap<Long, Long> expected, PersistentSkipList<Long, Long> list) {
+    assertEquals(expected.size(), list.size());
+    Iterator<Long> keys = list.keys();
+    for (Long key : expected.keySet()) {
+      assertEquals(key, keys.next());
+      assertEquals(expected.get(key), list.get(key));
+    } // for
+    assertFalse(keys.hasNext());
+  } // check(TreeMap, PersistentSkipList)
+
+  @Test
+  public void reopenTest() throws IOException {
+    Path file = Files.createTempFile("skiplist", ".dat");
+    try {
+      TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+      PersistentSkipList<Long, Long> list = open(file);
+      for (int i = 0; i < 5000; i++) {
+        long key = random.nextInt(3000);
+        if (random.nextInt(4) > 0) {
+          assertEquals(expected.put(key, (long) i), list.set(key, (long) i));
+        } else {
+          assertEquals(expected.remove(key), list.remove(key));
+        } // if/else
+      } // for
+      list.close();
+
+      // Everything should come back, and the reopened list should work
+      list = open(file);
+      check(expected, list);
+      for (long key = 3000; key < 3500; key++) {
+        list.set(key, -key);
+        expected.put(key, -key);
+        list.remove(key - 3000);
+        expected.remove(key - 3000);
+      } // for
+      list.close();
+      list = open(file);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(file);
+    } // try/finally
+  } // reopenTest()
+
+  @Test
+  public void crashTest() throws IOException {
+    Path file = Files.createTempFile("skiplist", ".dat");
+    try {
+      TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+      PersistentSkipList<Long, Long> list = open(file);
+      change(list, expected);
+      list.flush();
+      // Overwrites, removals and reused nodes after the flush all go away
+      change(list, null);
+      crash(list);
+      list = open(file);
+      check(expected, list);
+
+      // Crash in the middle of a flush: the nodes are on disk, but the new
+      // header is torn
+      change(list, expected);
+      list.flush();
+      change(list, null);
+      ((MappedArena) list.arena).force();
+      list.epoch++;
+      list.writeHeader();
+      ByteBuffer header = list.arena.buffer(0);
+      int at = PersistentSkipList.headerAt(list.epoch) + PersistentSkipList.SIZE_AT;
+      header.putInt(at, header.getInt(at) + 1);
+      crash(list);
+      list = open(file);
+      check(expected, list);
+
+      // The recovered list keeps working
+      change(list, expected);
+      list.close();
+      list = open(file);
+      check(expected, list);
+      list.close();
+    } finally {
+      delete(file);
+    } // try/finally
+  } // crashTest()
+
+  @Test
+  public void mismatchTest() throws IOException {
+    Path file = Files.createTempFile("skiplist", ".dat");
+    try {
+      open(file).close();
+      try {
+        PersistentSkipList.open(file, Serializer.INTEGER, Serializer.LONG,
+            (Integer i, Integer j) -> Integer.compare(i, j));
+        fail("opened a file with the wrong key width");
+      } catch (IOException e) {
+        // expected
+      } // try/catch
+    } finally {
+      delete(file);
+    } // try/finally
+  } // mismatchTest()
+
+} // class PersistentSkipListTests
@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests of the primitive-keyed skip lists, checked against a TreeMap.
+ */
+public class PrimitiveSkipListTests {
+
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  @Test
+  public void longBasicTest() {
+    LongSkipList<String> list = new LongSkipList<String>();
+    assertFalse(list.containsKey(5L));
+    assertNull(list.set(5L, "five"));
+    assertNull(list.set(Long.MIN_VALUE, "min"));
+    assertNull(list.set(Long.MAX_VALUE, "max"));
+    assertEquals("five", list.set(5L, "FIVE"));
+    assertEquals("FIVE", list.get(5L));
+    assertEquals("min", list.get(Long.MIN_VALUE));
+    assertEquals(3, list.size());
+    PrimitiveIterator.OfLong keys = list.keys();
+    assertEquals(Long.MIN_VALUE, keys.nextLong());
+    assertEquals(5L, keys.nextLong());
+    assertEquals(Long.MAX_VALUE, keys.nextLong());
+    assertFalse(keys.hasNext());
+  } // longBasicTest()
+
+  @Test
+  public void longRandomTest() {
+    LongSkipList<Long> list = new LongSkipList<Long>();
+    TreeMap<Long, Long> expected = new TreeMap<Long, Long>();
+    for (int i = 0; i < 5000; i++) {
+      long key = random.nextInt(1000) - 500;
+      if (random.nextBoolean()) {
+        assertEquals(expected.put(key, key * 2), list.set(key, key * 2));
+      } else {
+        assertEquals(expected.remove(key), list.remove(key));
+      } // if/else
+      assertEquals(expected.size(), list.size());
+    } // for
+    PrimitiveIterator.OfLong keys = list.keys();
+    for (Long key : expected.keySet()) {
+      assertEquals((long) key, keys.nextLong());
+      assertEquals(key * 2, (long) list.get(key));
+    } // for
+    assertFalse(keys.hasNext());
+  } // longRandomTest()
+
+  @Test
+  public void intRandomTest() {
+    IntSkipList<Integer> list = new IntSkipList<Integer>();
+    TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(1000) - 500;
+      if (random.nextBoolean()) {
+        assertEquals(expected.put(key, -key), list.set(key, -key));
+      } else {
+        assertEquals(expected.remove(key), list.remove(key));
+      } // if/else
+    } // for
+    PrimitiveIterator.OfInt keys = list.keys();
+    for (Integer key : expected.keySet()) {
+      assertEquals((int) key, keys.nextInt());
+      assertTrue(list.containsKey(key));
+    } // for
+    assertFalse(keys.hasNext());
+  } // intRandomTest()
+
+} // class PrimitiveSkipListTests
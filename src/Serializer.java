@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+/**
+ * Converts values to and from a fixed number of bytes, so that they can
+ * be stored outside the Java heap.
+ */
+public interface Serializer<T> {
+
+  /**
+   * Determine how many bytes each value takes.
+   */
+  public int width();
+
+  /**
+   * Write value into buf at the given offset, using exactly width() bytes.
+   *
+   * @throws IllegalArgumentException if value does not fit.
+   */
+  public void write(ByteBuffer buf, int offset, T value);
+
+  /**
+   * Read the value stored in buf at the given offset.
+   */
+  public T read(ByteBuffer buf, int offset);
+
+  /**
+   * Compare the value stored in buf at the given offset with value, as
+   * comparator would.  By default this reads the stored value back; the
+   * standard serializers for numbers compare the stored bytes directly
+   * when comparator is the natural order.
+   */
+  public default int compare(ByteBuffer buf, int offset, T value,
+      Comparator<? super T> comparator) {
+    return comparator.compare(read(buf, offset), value);
+  } // compare(ByteBuffer, int, T, Comparator)
+
+  // +-----------------+---------------------------------------------
+  // | Standard values |
+  // +-----------------+
+
+  /**
+   * Integers, in four bytes.
+   */
+  public static final Serializer<Integer> INTEGER = new Serializer<Integer>() {
+    @Override
+    public int width() {
+      return Integer.BYTES;
+    } // width()
+
+    @Override
+    public void write(ByteBuffer buf, int offset, Integer value) {
+      buf.putInt(offset, value);
+    } // write(ByteBuffer, int, Integer)
+
+    @Override
+    public Integer read(ByteBuffer buf, int offset) {
+      return buf.getInt(offset);
+    } // read(ByteBuffer, int)
+
+    @Override
+    public int compare(ByteBuffer buf, int offset, Integer value,
+        Comparator<? super Integer> comparator) {
+      if ((comparator == NaturalOrder.INTEGER) || (comparator == Comparator.naturalOrder())) {
+        return Integer.compare(buf.getInt(offset), value.intValue());
+      } // if
+      return comparator.compare(buf.getInt(offset), value);
+    } // compare(ByteBuffer, int, Integer, Comparator)
+  };
+
+  /**
+   * Longs, in eight bytes.
+   */
+  public static final Serializer<Long> LONG = new Serializer<Long>() {
+    @Override
+    public int width() {
+      return Long.BYTES;
+    } // width()
+
+    @Override
+    public void write(ByteBuffer buf, int offset, Long value) {
+      buf.putLong(offset, value);
+    } // write(ByteBuffer, int, Long)
+
+    @Override
+    public Long read(ByteBuffer buf, int offset) {
+      return buf.getLong(offset);
+    } // read(ByteBuffer, int)
+
+    @Override
+    public int compare(ByteBuffer buf, int offset, Long value,
+        Comparator<? super Long> comparator) {
+      if ((comparator == NaturalOrder.LONG) || (comparator == Comparator.naturalOrder())) {
+        return Long.compare(buf.getLong(offset), value.longValue());
+      } // if
+      return comparator.compare(buf.getLong(offset), value);
+    } // compare(ByteBuffer, int, Long, Comparator)
+  };
+
+  /**
+   * Build a serializer for strings of at most maxBytes bytes of UTF-8.
+   * Each string takes maxBytes + 2 bytes.
+   */
+  public static Serializer<String> string(int maxBytes) {
+    if ((maxBytes < 0) || (maxBytes > Short.MAX_VALUE)) {
+      throw new IllegalArgumentException("bad maximum length: " + maxBytes);
+    } // if
+    return new Serializer<String>() {
+      @Override
+      public int width() {
+        return Short.BYTES + maxBytes;
+      } // width()
+
+      @Override
+      public void write(ByteBuffer buf, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+          throw new IllegalArgumentException("string too long: " + value);
+        } // if
+        buf.putShort(offset, (short) bytes.length);
+        buf.put(offset + Short.BYTES, bytes);
+      } // write(ByteBuffer, int, String)
+
+      @Override
+      public String read(ByteBuffer buf, int offset) {
+        byte[] bytes = new byte[buf.getShort(offset)];
+        buf.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+      } // read(ByteBuffer, int)
+    };
+  } // string(int)
+
+} // interface Serializer<T>
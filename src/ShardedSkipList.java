@@ -0,0 +1,669 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A map that may be shared between threads, split by key range over a
+ * fixed number of independent SkipLists (shards), so that writers to
+ * different ranges never touch the same front or lock.
+ *
+ * Each shard covers the keys from its lower bound up to the next shard's
+ * and has its own StampedLock, used as in StampedSkipList: writes take
+ * it, reads validate an optimistic stamp.  Keys are routed by a binary
+ * search over the current bounds, which are published as a fresh array
+ * whenever they change.  Routing may use bounds that are out of date, so
+ * every operation checks, under its shard's lock or stamp, that the
+ * shard still covers its key, and routes again if not.  There is no
+ * lock over the whole map.
+ *
+ * A new map puts every key in the first shard.  When a shard grows to
+ * SKEW times its share of the map, it spreads its entries over the
+ * shards on its lighter side (the side with fewer entries per shard):
+ * it hands everything over that side's mean to its neighbour, which does
+ * the same to the next, and so on to the end, moving the bounds as they
+ * go.  Each step holds the locks of just the two shards involved.
+ *
+ * Iteration visits the shards in key order, since their ranges do not
+ * overlap.  Iterators are weakly consistent, as in StampedSkipList: they
+ * read BATCH entries at a time and pick up after the last key they
+ * returned, or at the bound where the last shard they read ended.
+ */
+public class ShardedSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How many entries an iterator reads under each stamp.
+   */
+  static final int BATCH = 64;
+
+  /**
+   * Shards check their balance each time their size reaches a multiple
+   * of this (a power of two).
+   */
+  static final int CHECK_EVERY = 1024;
+
+  /**
+   * Shards smaller than this are never rebalanced.
+   */
+  static final int MIN_SHARD = 4096;
+
+  /**
+   * How many times its share of the map a shard may hold before it is
+   * rebalanced.
+   */
+  static final int SKEW = 2;
+
+  /**
+   * What lookup returns for a missing key (since values may be null).
+   */
+  static final Object MISSING = new Object();
+
+  /**
+   * What lookup and scan return when the shard no longer covers the key.
+   */
+  static final Object MOVED = new Object();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The comparator used to determine the ordering in the map.
+   */
+  final Comparator<K> comparator;
+
+  /**
+   * The shards, in key order.
+   */
+  final Shard[] shards;
+
+  /**
+   * bounds[i] is the smallest key that shard i + 1 may hold, or null if
+   * shard i + 1 and all later shards are still empty.  Replaced, never
+   * changed, so that readers can route without locking.
+   */
+  volatile K[] bounds;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new map with the given number of shards that orders keys
+   * using the specified comparator.
+   *
+   * @throws IllegalArgumentException if count is not positive.
+   */
+  @SuppressWarnings("unchecked")
+  public ShardedSkipList(Comparator<K> comparator, int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("bad shard count: " + count);
+    } // if
+    this.comparator = comparator;
+    this.shards = (Shard[]) new ShardedSkipList.Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(i);
+    } // for
+    this.bounds = (K[]) new Object[count - 1];
+  } // ShardedSkipList(Comparator<K>, int)
+
+  /**
+   * Create a new map with the given number of shards that orders keys of
+   * class keyType in their natural order (see NaturalOrder).
+   *
+   * @throws IllegalArgumentException if keyType is not Comparable or
+   *         count is not positive.
+   */
+  public ShardedSkipList(Class<K> keyType, int count) {
+    this(NaturalOrder.of(keyType), count);
+  } // ShardedSkipList(Class<K>, int)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    while (true) {
+      Shard shard = shards[route(key)];
+      V old;
+      boolean grew;
+      int size;
+      long stamp = shard.lock.writeLock();
+      try {
+        if (!shard.covers(key)) {
+          continue; // the bounds moved; route again
+        } // if
+        int before = shard.list.size;
+        old = shard.list.set(key, value);
+        size = shard.list.size;
+        grew = (size > before);
+      } finally {
+        shard.lock.unlockWrite(stamp);
+      } // try/finally
+      if (grew && ((size & (CHECK_EVERY - 1)) == 0)) {
+        balance(shard.index);
+      } // if
+      return old;
+    } // while
+  } // set(K, V)
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    Object value = lookup(key);
+    if (value == MISSING) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return (V) value;
+  } // get(K)
+
+  /**
+   * Count the entries in every shard.  Not atomic: entries that move or
+   * change while we count may be counted wrongly.
+   */
+  @Override
+  public int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    } // for
+    return size;
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return lookup(key) != MISSING;
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    while (true) {
+      Shard shard = shards[route(key)];
+      long stamp = shard.lock.writeLock();
+      try {
+        if (shard.covers(key)) {
+          return shard.list.remove(key);
+        } // if
+      } finally {
+        shard.lock.unlockWrite(stamp);
+      } // try/finally
+    } // while
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      Cursor cursor = new Cursor();
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public K next() {
+        cursor.advance();
+        return cursor.lastKey;
+      } // next()
+
+      @Override
+      public void remove() {
+        cursor.remove();
+      } // remove()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      Cursor cursor = new Cursor();
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public V next() {
+        cursor.advance();
+        return cursor.lastValue;
+      } // next()
+
+      @Override
+      public void remove() {
+        cursor.remove();
+      } // remove()
+    };
+  } // values()
+
+  /**
+   * Apply action to each entry in key order, weakly consistently (as the
+   * iterators do).  action runs without any lock, so it may itself use
+   * the map.
+   */
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    Cursor cursor = new Cursor();
+    while (cursor.hasNext()) {
+      cursor.advance();
+      action.accept(cursor.lastKey, cursor.lastValue);
+    } // while
+  } // forEach(BiConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Get the number of entries in each shard (for monitoring balance).
+   */
+  public int[] shardSizes() {
+    int[] sizes = new int[shards.length];
+    for (int i = 0; i < shards.length; i++) {
+      sizes[i] = shards[i].size();
+    } // for
+    return sizes;
+  } // shardSizes()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Find the shard that covers key, according to the current bounds.
+   */
+  int route(K key) {
+    K[] bounds = this.bounds;
+    int lo = 0;
+    int hi = bounds.length;
+    // find the first bound that is null or greater than key
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if ((bounds[mid] != null) && (comparator.compare(bounds[mid], key) <= 0)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      } // if/else
+    } // while
+    return lo;
+  } // route(K)
+
+  /**
+   * Get the value for key, or MISSING if key is not in the map.
+   */
+  Object lookup(K key) {
+    while (true) {
+      Object value = shards[route(key)].lookup(key);
+      if (value != MOVED) {
+        return value;
+      } // if
+    } // while
+  } // lookup(K)
+
+  /**
+   * If shard i holds more than SKEW times its share of the map, spread
+   * its entries over the shards on its lighter side.
+   */
+  void balance(int i) {
+    int n = shards[i].size();
+    int total = size();
+    if ((shards.length == 1) || (n < MIN_SHARD) || (n <= SKEW * (total / shards.length))) {
+      return;
+    } // if
+    long below = 0;
+    for (int k = 0; k < i; k++) {
+      below += shards[k].size();
+    } // for
+    long above = total - n - below;
+    // compare below / i with above / (shards.length - 1 - i)
+    boolean up = (i == 0)
+        || ((i < shards.length - 1) && (above * i <= below * (shards.length - 1 - i)));
+    int end = up ? shards.length - 1 : 0;
+    int step = up ? 1 : -1;
+    int target = (int) ((n + (up ? above : below)) / (Math.abs(end - i) + 1));
+    for (int k = i; k != end; k += step) {
+      move(shards[k], shards[k + step], target);
+    } // for
+  } // balance(int)
+
+  /**
+   * Move entries from src to its neighbour dst until src holds just keep
+   * of them, and move the bound between them to match.  The nodes move
+   * as they are, by SkipList.cut and join, so this takes O(log n) time
+   * however many entries move (once the shards are indexed, which their
+   * first move does in O(n) time).
+   *
+   * @return false if src held no more than keep already.
+   */
+  boolean move(Shard src, Shard dst, int keep) {
+    Shard lower = (src.index < dst.index) ? src : dst;
+    Shard upper = (src.index < dst.index) ? dst : src;
+    // always lock in index order, so that two moves cannot deadlock
+    long lowerStamp = lower.lock.writeLock();
+    long upperStamp = upper.lock.writeLock();
+    try {
+      int count = src.list.size - keep;
+      if (count <= 0) {
+        return false;
+      } // if
+      K split;
+      // cut src where the moving entries meet the ones that stay, and
+      // join the pieces up again in order; split is the smallest key above
+      // the cut, which becomes the bound between the shards
+      if (src == lower) {
+        SkipList<K, V> moving = src.list.cut(keep);
+        split = moving.front.get(0).key;
+        moving.join(dst.list);
+        dst.list.join(moving);
+      } else {
+        SkipList<K, V> staying = src.list.cut(count);
+        split = staying.front.get(0).key;
+        dst.list.join(src.list);
+        src.list.join(staying);
+      } // if/else
+      upper.lo = split;
+      lower.hi = split;
+      synchronized (this) {
+        K[] copy = Arrays.copyOf(this.bounds, this.bounds.length);
+        copy[lower.index] = split;
+        this.bounds = copy;
+      } // synchronized
+      return true;
+    } finally {
+      upper.lock.unlockWrite(upperStamp);
+      lower.lock.unlockWrite(lowerStamp);
+    } // try/finally
+  } // move(Shard, Shard, int)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * One shard: a SkipList, its lock, and the range of keys it covers.
+   */
+  class Shard {
+    /**
+     * Where we are among the shards.
+     */
+    final int index;
+
+    /**
+     * The entries.  Guarded by lock.
+     */
+    final SkipList<K, V> list;
+
+    /**
+     * Guards list, lo and hi.
+     */
+    final StampedLock lock;
+
+    /**
+     * The smallest key we may hold, or null for none: shard 0 has no
+     * lower bound, and other shards that have never held anything cover
+     * nothing.  Guarded by lock.
+     */
+    K lo;
+
+    /**
+     * The key just past the ones we may hold, or null if there is no
+     * upper bound.  Guarded by lock.
+     */
+    K hi;
+
+    Shard(int index) {
+      this.index = index;
+      this.list = new SkipList<K, V>(comparator);
+      this.lock = new StampedLock();
+    } // Shard(int)
+
+    /**
+     * Determine whether key belongs here.  Call with the lock held or
+     * under a stamp.
+     */
+    boolean covers(K key) {
+      if (index > 0) {
+        if ((lo == null) || (comparator.compare(key, lo) < 0)) {
+          return false;
+        } // if
+      } // if
+      return (hi == null) || (comparator.compare(key, hi) < 0);
+    } // covers(K)
+
+    /**
+     * Count our entries.
+     */
+    int size() {
+      long stamp = lock.tryOptimisticRead();
+      int size = list.size;
+      if (!lock.validate(stamp)) {
+        stamp = lock.readLock();
+        try {
+          size = list.size;
+        } finally {
+          lock.unlockRead(stamp);
+        } // try/finally
+      } // if
+      return size;
+    } // size()
+
+    /**
+     * Get the value for key, MISSING if it is not here, or MOVED if we no
+     * longer cover it.  Tries an optimistic read first, as in
+     * StampedSkipList.
+     */
+    Object lookup(K key) {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        try {
+          Object value = match(key);
+          if (lock.validate(stamp)) {
+            return value;
+          } // if
+        } catch (RuntimeException e) {
+          if (lock.validate(stamp)) {
+            throw e;
+          } // if the shard was stable, the exception is real
+        } // try/catch
+      } // if
+      stamp = lock.readLock();
+      try {
+        return match(key);
+      } finally {
+        lock.unlockRead(stamp);
+      } // try/finally
+    } // lookup(K)
+
+    /**
+     * The body of lookup, without any locking.
+     */
+    Object match(K key) {
+      if (!covers(key)) {
+        return MOVED;
+      } else if (list.size == 0) {
+        return MISSING;
+      } // if/else
+      SLNode<K, V> node = list.search(key);
+      if ((node != null) && (comparator.compare(node.key, key) == 0)) {
+        return node.value;
+      } // if
+      return MISSING;
+    } // match(K)
+
+    /**
+     * Refill cursor's batch from this shard, as lookup reads.
+     *
+     * @return MOVED if we no longer cover the cursor's position.
+     */
+    Object scan(Cursor cursor) {
+      long stamp = lock.tryOptimisticRead();
+      if (stamp != 0) {
+        try {
+          Object result = copy(cursor);
+          if (lock.validate(stamp)) {
+            return result;
+          } // if
+        } catch (RuntimeException e) {
+          if (lock.validate(stamp)) {
+            throw e;
+          } // if
+        } // try/catch
+      } // if
+      stamp = lock.readLock();
+      try {
+        return copy(cursor);
+      } finally {
+        lock.unlockRead(stamp);
+      } // try/finally
+    } // scan(Cursor)
+
+    /**
+     * The body of scan, without any locking.  Copies up to BATCH entries
+     * from the cursor's position on, and records our upper bound.
+     */
+    Object copy(Cursor cursor) {
+      SLNode<K, V> node;
+      if (cursor.from == null) {
+        if (index != 0) {
+          return MOVED;
+        } // if
+        node = list.front.get(0);
+      } else {
+        if (!covers(cursor.from)) {
+          return MOVED;
+        } // if
+        node = list.search(cursor.from);
+        if (!cursor.inclusive && (node != null)
+            && (comparator.compare(node.key, cursor.from) == 0)) {
+          node = node.next[0];
+        } // if
+      } // if/else
+      int count = 0;
+      while ((node != null) && (count < BATCH)) {
+        cursor.keys[count] = node.key;
+        cursor.values[count] = node.value;
+        count++;
+        node = node.next[0];
+      } // while
+      cursor.count = count;
+      cursor.exhausted = (node == null);
+      cursor.hi = hi;
+      return null;
+    } // copy(Cursor)
+  } // class Shard
+
+  /**
+   * Walks the map a batch at a time, from shard to shard.
+   */
+  class Cursor {
+    /**
+     * Copies of the entries in the current batch.
+     */
+    @SuppressWarnings("unchecked")
+    final K[] keys = (K[]) new Object[BATCH];
+    @SuppressWarnings("unchecked")
+    final V[] values = (V[]) new Object[BATCH];
+
+    /**
+     * How many entries the current batch holds.
+     */
+    int count = 0;
+
+    /**
+     * The index of the next entry in the batch to return.
+     */
+    int pos = 0;
+
+    /**
+     * Where the next batch starts (null for the very start), and whether
+     * it includes from itself.
+     */
+    K from = null;
+    boolean inclusive = false;
+
+    /**
+     * Whether the last batch reached the end of its shard, and that
+     * shard's upper bound at the time.
+     */
+    boolean exhausted = false;
+    K hi;
+
+    /**
+     * Whether there is nothing left to read.
+     */
+    boolean done = false;
+
+    /**
+     * The entry we returned most recently (for remove).
+     */
+    K lastKey;
+    V lastValue;
+    boolean returned = false;
+
+    boolean hasNext() {
+      while ((pos == count) && !done) {
+        refill();
+      } // while
+      return pos < count;
+    } // hasNext()
+
+    /**
+     * Read the next batch, moving on to the next shard when one runs out.
+     */
+    void refill() {
+      Shard shard = shards[(from == null) ? 0 : route(from)];
+      this.pos = 0;
+      if (shard.scan(this) == MOVED) {
+        this.count = 0;
+        return; // the bounds moved under us; route again
+      } // if
+      if (!exhausted) {
+        this.from = keys[count - 1];
+        this.inclusive = false;
+      } else if (hi == null) {
+        this.done = true; // the shard covered everything to the end
+      } else {
+        this.from = hi;
+        this.inclusive = true;
+      } // if/else
+    } // refill()
+
+    void advance() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      } // if
+      this.lastKey = keys[pos];
+      this.lastValue = values[pos];
+      this.returned = true;
+      pos++;
+    } // advance()
+
+    void remove() {
+      if (!returned) {
+        throw new IllegalStateException();
+      } // if
+      ShardedSkipList.this.remove(this.lastKey);
+      this.returned = false;
+    } // remove()
+  } // class Cursor
+
+} // class ShardedSkipList<K,V>
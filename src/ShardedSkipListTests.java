@@ -0,0 +1,205 @@
+import static org.junit.Assert.*;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests of ShardedSkipList, including rebalancing and writers racing
+ * each other across shards.
+ */
+public class ShardedSkipListTests {
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build an empty map of integers with the given number of shards.
+   */
+  static ShardedSkipList<Integer, String> ints(int shards) {
+    return new ShardedSkipList<Integer, String>(Integer.class, shards);
+  } // ints(int)
+
+  /**
+   * Check that every shard holds only keys in its range, and that the
+   * keys come out in order.  Only call when nothing else uses the map.
+   */
+  static void checkShards(ShardedSkipList<Integer, String> map) {
+    int total = 0;
+    for (ShardedSkipList<Integer, String>.Shard shard : map.shards) {
+      Iterator<Integer> keys = shard.list.keys();
+      while (keys.hasNext()) {
+        assertTrue(shard.covers(keys.next()));
+      } // while
+      total += shard.list.size;
+    } // for
+    assertEquals(total, map.size());
+    int prev = Integer.MIN_VALUE;
+    int count = 0;
+    Iterator<Integer> keys = map.keys();
+    while (keys.hasNext()) {
+      int next = keys.next();
+      assertTrue(prev + " before " + next, (count == 0) || (prev < next));
+      prev = next;
+      count++;
+    } // while
+    assertEquals(total, count);
+  } // checkShards(ShardedSkipList<Integer,String>)
+
+  // +-------------+-----------------------------------------------------
+  // | Basic Tests |
+  // +-------------+
+
+  @Test
+  public void basicTest() {
+    ShardedSkipList<Integer, String> map = ints(4);
+    assertFalse(map.containsKey(1));
+    assertNull(map.set(1, "one"));
+    assertEquals("one", map.set(1, "uno"));
+    assertEquals("uno", map.get(1));
+    assertNull(map.set(2, null));
+    assertTrue(map.containsKey(2));
+    assertNull(map.get(2));
+    assertEquals(2, map.size());
+    assertEquals("uno", map.remove(1));
+    assertNull(map.remove(1));
+    assertFalse(map.containsKey(1));
+    assertEquals(1, map.size());
+    try {
+      map.get(3);
+      fail("get of a missing key should throw");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+  } // basicTest()
+
+  /**
+   * Keys added in increasing order all start in the first shard, and get
+   * spread over every shard, with none far over its share.
+   */
+  @Test
+  public void rebalanceTest() {
+    int shards = 8;
+    int n = 64 * ShardedSkipList.MIN_SHARD;
+    ShardedSkipList<Integer, String> map = ints(shards);
+    for (int i = 0; i < n; i++) {
+      map.set(i, Integer.toString(i));
+    } // for
+    checkShards(map);
+    for (int size : map.shardSizes()) {
+      assertTrue(size > 0);
+      assertTrue(size <= ShardedSkipList.SKEW * n / shards + ShardedSkipList.CHECK_EVERY);
+    } // for
+    for (int i = 0; i < n; i++) {
+      assertEquals(Integer.toString(i), map.get(i));
+    } // for
+    // iteration crosses shards and batches, and remove through it works
+    Iterator<Integer> keys = map.keys();
+    Iterator<String> values = map.values();
+    for (int i = 0; i < n; i++) {
+      assertEquals(Integer.valueOf(i), keys.next());
+      assertEquals(Integer.toString(i), values.next());
+      if (i % 2 == 0) {
+        keys.remove();
+      } // if
+    } // for
+    assertFalse(keys.hasNext());
+    assertFalse(values.hasNext());
+    assertEquals(n / 2, map.size());
+    checkShards(map);
+  } // rebalanceTest()
+
+  /**
+   * An iterator that routes to a shard that no longer covers its position
+   * (as when a rebalance moves a bound between routing and reading) must
+   * route again and carry on, not stop.
+   */
+  @Test
+  public void staleRouteTest() {
+    int[] stale = new int[1];
+    ShardedSkipList<Integer, String> map =
+        new ShardedSkipList<Integer, String>(Integer.class, 4) {
+          @Override
+          int route(Integer key) {
+            if (stale[0] > 0) {
+              stale[0]--;
+              return shards.length - 1; // covers nothing yet
+            } // if
+            return super.route(key);
+          } // route(Integer)
+        };
+    int n = 3 * ShardedSkipList.BATCH + 8;
+    for (int i = 0; i < n; i++) {
+      map.set(i, Integer.toString(i));
+    } // for
+    stale[0] = 2;
+    int count = 0;
+    Iterator<Integer> keys = map.keys();
+    while (keys.hasNext()) {
+      assertEquals(Integer.valueOf(count), keys.next());
+      count++;
+    } // while
+    assertEquals(n, count);
+    assertEquals(0, stale[0]);
+    stale[0] = 1;
+    int[] seen = new int[1];
+    map.forEach((k, v) -> seen[0]++);
+    assertEquals(n, seen[0]);
+  } // staleRouteTest()
+
+  // +--------------+----------------------------------------------------
+  // | Stress Tests |
+  // +--------------+
+
+  /**
+   * Writers fill disjoint sets of keys in random order, so shards
+   * rebalance, while thread 0 reads and iterates.  The reader must never
+   * see a wrong value or keys out of order, and at the end every key must
+   * be in the right shard.
+   */
+  @Test
+  public void writersTest() throws InterruptedException {
+    ShardedSkipList<Integer, String> map = ints(8);
+    int threads = ConcurrentSkipListTests.THREADS;
+    int perThread = 8 * ShardedSkipList.MIN_SHARD;
+    AtomicInteger finished = new AtomicInteger(0);
+    ConcurrentSkipListTests.inParallel((t) -> {
+      Random random = new Random(t);
+      if (t == 0) {
+        while (finished.get() < threads - 1) {
+          int key = random.nextInt(threads * perThread);
+          if (map.containsKey(key)) {
+            assertEquals(Integer.toString(key), map.get(key));
+          } // if
+          int prev = -1;
+          Iterator<Integer> it = map.keys();
+          for (int i = 0; (i < 1000) && it.hasNext(); i++) {
+            int next = it.next();
+            assertTrue(prev + " before " + next, prev < next);
+            prev = next;
+          } // for
+        } // while
+        return;
+      } // if
+      try {
+        for (int i = 0; i < perThread; i++) {
+          int key = random.nextInt(perThread) * threads + t;
+          map.set(key, Integer.toString(key));
+          if (random.nextInt(4) == 0) {
+            map.remove(key);
+          } // if
+        } // for
+      } finally {
+        finished.incrementAndGet();
+      } // try/finally
+    });
+    checkShards(map);
+    int nonEmpty = 0;
+    for (int size : map.shardSizes()) {
+      nonEmpty += (size > 0) ? 1 : 0;
+    } // for
+    assertTrue(nonEmpty > 1);
+  } // writersTest()
+
+} // class ShardedSkipListTests
@@ -1,10 +1,19 @@
 import java.io.PrintWriter;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.Random;
+import java.util.Map;
+import java.util.Spliterator;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An implementation of skip lists.
@@ -16,15 +25,10 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
   // +-----------+
 
   /**
-   * The initial height of the skip list.
+   * The initial height of the skip list.  front grows as taller nodes
+   * arrive, so small lists only pay for the levels they use.
    */
-  static final int INITIAL_HEIGHT = 16;
-
-  // +---------------+-----------------------------------------------
-  // | Static Fields |
-  // +---------------+
-
-  static Random rand = new Random();
+  static final int INITIAL_HEIGHT = 1;
 
   // +--------+------------------------------------------------------
   // | Fields |
@@ -35,6 +39,17 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
    */
   ArrayList<SLNode<K, V>> front;
 
+  /**
+   * The spans of the front links: frontSpan[i] is the position of
+   * front.get(i) (see SLNode.span).  Only kept up to date when indexed.
+   */
+  int[] frontSpan;
+
+  /**
+   * Whether the links carry spans (see setIndexed).
+   */
+  boolean indexed;
+
   /**
    * The comparator used to determine the ordering in the list.
    */
@@ -56,9 +71,35 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
   int highestLevel;
 
   /**
-   * The probability used to determine the height of nodes.
+   * Where the heights of new nodes come from.
+   */
+  HeightGenerator heights = HeightGenerator.DEFAULT;
+
+  /**
+   * What the list tunes its heights for (or null, to use heights as is).
+   */
+  Tuning tuning;
+
+  /**
+   * Who to tell about what the list is doing (or null, for no tracing).
+   */
+  SkipListListener<? super K, ? super V> listener;
+
+  /**
+   * Counters for searches and towers (or null, for no counting).
+   */
+  SkipListMetrics<K, V> metrics;
+
+  /**
+   * Whether searches start from the finger rather than the top of front.
+   */
+  boolean fingerSearch;
+
+  /**
+   * The last node before the most recently searched key on each level (the
+   * result of the last getNodes), or null if there is no usable finger.
    */
-  double prob = 0.5;
+  SLNode<K, V>[] finger;
 
   // +--------------+------------------------------------------------
   // | Constructors |
@@ -72,6 +113,7 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
     for (int i = 0; i < INITIAL_HEIGHT; i++) {
       front.add(null);
     } // for
+    this.frontSpan = new int[INITIAL_HEIGHT];
     this.comparator = comparator;
     this.size = 0;
     this.highestLevel = 0;
@@ -79,12 +121,85 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
   } // SkipList(Comparator<K>)
 
   /**
-   * Create a new skip list that orders values using a not-very-clever default comparator.
+   * Create a new skip list that orders keys of class keyType in their
+   * natural order (see NaturalOrder).
+   *
+   * @throws IllegalArgumentException if keyType is not Comparable.
+   */
+  public SkipList(Class<K> keyType) {
+    this(NaturalOrder.of(keyType));
+  } // SkipList(Class<K>)
+
+  /**
+   * Create a new skip list that orders keys in their natural order.  Keys
+   * must be Comparable; others fail with a ClassCastException when they
+   * are first compared.  Prefer SkipList(Class), which checks the key
+   * type up front and has fast paths for String, Integer and Long.
    */
+  @SuppressWarnings("unchecked")
   public SkipList() {
-    this((k1, k2) -> k1.toString().compareTo(k2.toString()));
+    this((Comparator<K>) NaturalOrder.COMPARABLE);
   } // SkipList()
 
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Build a skip list from entries whose keys are in strictly increasing
+   * order.  The towers are built in a single pass, with no searching, so
+   * this takes O(n) time rather than the O(n log n) of n calls to set.
+   *
+   * @throws IllegalArgumentException if the keys are out of order or repeated.
+   * @throws NullPointerException if a key is null.
+   */
+  public static <K, V> SkipList<K, V> fromSorted(Iterator<? extends Map.Entry<K, V>> entries,
+      Comparator<K> comparator) {
+    SkipList<K, V> list = new SkipList<K, V>(comparator);
+    SLNode<K, V>[] tails = list.newPath();
+    while (entries.hasNext()) {
+      Map.Entry<K, V> entry = entries.next();
+      tails = list.append(tails, entry.getKey(), entry.getValue());
+    } // while
+    return list;
+  } // fromSorted(Iterator, Comparator)
+
+  /**
+   * Build a skip list from entries in any order, using every core: the
+   * entries are sorted in parallel, and runs of them are linked up by
+   * separate fork-join tasks and then stitched together (see
+   * SkipListBuilder).  If a key appears more than once, the last of its
+   * entries wins, as for setAll.
+   *
+   * @throws NullPointerException if any key is null.
+   */
+  public static <K, V> SkipList<K, V> fromUnsorted(Collection<? extends Map.Entry<K, V>> entries,
+      Comparator<K> comparator) {
+    return SkipListBuilder.build(entries, comparator);
+  } // fromUnsorted(Collection, Comparator)
+
+  /**
+   * Merge two lists into a new one in O(m + n) time, walking both level-0
+   * chains in step and building fresh towers as we go, without a single
+   * search.  Where a key is in both lists, its value is conflict(value
+   * in a, value in b).  The lists must use the same ordering, and must
+   * not change during the merge; they are not themselves changed.
+   */
+  public static <K, V> SkipList<K, V> merge(SkipList<K, V> a, SkipList<K, V> b,
+      BiFunction<? super V, ? super V, ? extends V> conflict) {
+    return SkipListBuilder.merge(a, b, conflict, false);
+  } // merge(SkipList<K,V>, SkipList<K,V>, BiFunction)
+
+  /**
+   * Merge two lists as merge does, but on every core: the key range is
+   * cut at evenly spaced keys from a high level of the larger list, and
+   * each range is merged by its own fork-join task.
+   */
+  public static <K, V> SkipList<K, V> parallelMerge(SkipList<K, V> a, SkipList<K, V> b,
+      BiFunction<? super V, ? super V, ? extends V> conflict) {
+    return SkipListBuilder.merge(a, b, conflict, true);
+  } // parallelMerge(SkipList<K,V>, SkipList<K,V>, BiFunction)
+
 
   // +-------------------+-------------------------------------------
   // | SimpleMap methods |
@@ -104,73 +219,10 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
       throw new NullPointerException("null key");
     } // if
 
-    // make newnode
-    int h = randomHeight();
-    SLNode<K, V> newnode = new SLNode<K, V>(key, value, h);
-
-    // if the list is empty
-    if (this.size == 0) {
-      if (h > this.height) {
-        this.height = h;
-      } // if h > this.height
-
-      // make front point to newnode for h levels
-      for (int i = 0; i < h; i++) {
-        if (front.size() < i) {
-          front.add(newnode);
-        } else {
-          front.set(i, newnode);
-        }
-      } // for
-      this.size++;
-      System.out.println("Added " + key + " to empty list");
-      return value;
-    } // if the list is empty
-
-    else {
-      SLNode<K, V> node = search(key);
-
-      System.out.println("search for " + key + " , found " + key);
-
-      // if key is already present
-      if (comparator.compare(node.key, key) == 0) {
-        V tmp = node.value;
-        node.value = value;
-        return tmp;
-      } else {
-        // if we have to insert a new node
-
-
-        if (h > this.highestLevel) {
-          this.highestLevel = h - 1;
-        } // if (h > highestLevel)
-
-        if (h > this.height) {
-          // update front
-          for (int j = 0; j < h - this.height; j++) {
-            front.add(newnode);
-          }
-          // update height fields
-          this.height = h;
-        } // if (h > height)
+    // find the last node before key on every level
+    SLNode<K, V>[] nodes = this.getNodes(key);
 
-
-
-        SLNode<K, V>[] nodes = this.getNodes(key).clone();
-
-       
-        
-        for (int i = h; i > 0; i--) {
-          {
-            newnode.setNext(i, nodes[i]);// make newnode point to next element
-            nodes[i].setNext(i, newnode);// correct pointers to newnode
-          }
-        } // for
-        
-        this.size++;
-        return value;
-      } // if we have to insert newnode
-    } // if list is not empty
+    return this.put(nodes, key, value);
   } // set(K,V)
 
   /**
@@ -190,7 +242,7 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
 
     SLNode<K, V> node = search(key);
 
-    if (comparator.compare(node.key, key) == 0) {
+    if ((node != null) && (comparator.compare(node.key, key) == 0)) {
       return node.value;
     } else {
       throw new IndexOutOfBoundsException("key not found");
@@ -211,7 +263,7 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
     }
 
     SLNode<K, V> node = search(key);
-    if (comparator.compare(node.key, key) == 0) {
+    if ((node != null) && (comparator.compare(node.key, key) == 0)) {
       return true;
     } else {
       return false;
@@ -220,8 +272,49 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
 
   @Override
   public V remove(K key) {
-    // TODO Auto-generated method stub
-    return null;
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+
+    // find the last node before key on every level
+    SLNode<K, V>[] nodes = this.getNodes(key);
+    SLNode<K, V> node = this.next(nodes[0], 0);
+    if ((node == null) || (comparator.compare(node.key, key) != 0)) {
+      return null;
+    } // if key is not present
+
+    // unlink node from every level of its tower
+    int h = node.next.length;
+    for (int i = 0; i < h; i++) {
+      if (this.indexed && (node.next[i] != null)) {
+        this.setSpan(nodes[i], i, this.span(nodes[i], i) + node.span[i] - 1);
+      } // if
+      if (nodes[i] == null) {
+        front.set(i, node.next[i]);
+      } else {
+        nodes[i].next[i] = node.next[i];
+      } // if/else
+    } // for
+    // links that passed over node are now one shorter
+    for (int i = h; this.indexed && (i <= this.highestLevel); i++) {
+      if (this.next(nodes[i], i) != null) {
+        this.setSpan(nodes[i], i, this.span(nodes[i], i) - 1);
+      } // if
+    } // for
+
+    // drop any levels that are now empty
+    while ((this.highestLevel > 0) && (front.get(this.highestLevel) == null)) {
+      this.highestLevel--;
+    } // while
+
+    this.size--;
+    if (metrics != null) {
+      metrics.removed(node.next.length);
+    } // if
+    if (listener != null) {
+      listener.removed(key, node.value);
+    } // if
+    return node.value;
   } // remove(K)
 
   @Override
@@ -270,8 +363,9 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
 
   @Override
   public void forEach(BiConsumer<? super K, ? super V> action) {
-    // TODO Auto-generated method stub
-
+    for (SLNode<K, V> node = front.get(0); node != null; node = node.next[0]) {
+      action.accept(node.key, node.value);
+    } // for
   } // forEach
 
   // +----------------------+----------------------------------------
@@ -309,17 +403,17 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
       } // if/else
 
       // Print an indication for the links it has.
-      for (int level = 0; level < current.next.size(); level++) {
+      for (int level = 0; level < current.next.length; level++) {
         pen.print("-*");
       } // for
       // Print an indication for the links it lacks.
-      for (int level = current.next.size(); level < this.height; level++) {
+      for (int level = current.next.length; level < this.height; level++) {
         pen.print(" |");
       } // for
       pen.println();
       // printLinks(pen, leading);
 
-      current = current.next.get(0);
+      current = current.next[0];
     } // while
 
     // Print some O's at the start
@@ -331,6 +425,324 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
 
   } // dump(PrintWriter)
 
+  /**
+   * Install a listener to trace the operations on this list.  Pass null to
+   * turn tracing off.
+   */
+  public void setListener(SkipListListener<? super K, ? super V> listener) {
+    this.listener = listener;
+  } // setListener(SkipListListener)
+
+  /**
+   * Apply action to each key/value pair in order, stopping as soon as it
+   * returns false.
+   *
+   * @return true if we visited every pair, false if action stopped us.
+   */
+  public boolean forEachWhile(BiPredicate<? super K, ? super V> action) {
+    for (SLNode<K, V> node = front.get(0); node != null; node = node.next[0]) {
+      if (!action.test(node.key, node.value)) {
+        return false;
+      } // if
+    } // for
+    return true;
+  } // forEachWhile(BiPredicate)
+
+  /**
+   * Set the value for each key in a batch of entries.  The batch is sorted
+   * first, and then each search starts from the path of the previous key
+   * rather than from the top of the list, so a batch of k keys costs
+   * O(k log(n/k)) comparisons rather than O(k log n).  If a key appears
+   * more than once, the last of its entries wins.
+   *
+   * @throws NullPointerException if any key is null.
+   */
+  public void setAll(Collection<? extends Map.Entry<K, V>> batch) {
+    @SuppressWarnings("unchecked")
+    Map.Entry<K, V>[] entries = batch.toArray(new Map.Entry[batch.size()]);
+    for (Map.Entry<K, V> entry : entries) {
+      if (entry.getKey() == null) {
+        throw new NullPointerException("null key");
+      } // if
+    } // for
+    // a stable sort, so that repeated keys stay in batch order
+    Arrays.sort(entries, (e1, e2) -> comparator.compare(e1.getKey(), e2.getKey()));
+
+    this.finger = null; // insertions could invalidate it
+    SLNode<K, V>[] nodes = this.newPath();
+    int base = gapLevel(entries.length);
+    for (Map.Entry<K, V> entry : entries) {
+      nodes = this.advance(nodes, entry.getKey(), base);
+      this.put(nodes, entry.getKey(), entry.getValue());
+    } // for
+  } // setAll(Collection)
+
+  /**
+   * Look up a batch of keys, sharing search paths as in setAll.
+   *
+   * @return a new list holding the keys that are present, with their values.
+   * @throws NullPointerException if any key is null.
+   */
+  public SkipList<K, V> getAll(Collection<? extends K> batch) {
+    @SuppressWarnings("unchecked")
+    K[] keys = (K[]) batch.toArray();
+    for (K key : keys) {
+      if (key == null) {
+        throw new NullPointerException("null key");
+      } // if
+    } // for
+    Arrays.sort(keys, comparator);
+
+    SkipList<K, V> result = new SkipList<K, V>(baseComparator());
+    SLNode<K, V>[] tails = result.newPath();
+    SLNode<K, V>[] nodes = this.newPath();
+    int base = gapLevel(keys.length);
+    for (K key : keys) {
+      if ((tails[0] != null) && (comparator.compare(tails[0].key, key) == 0)) {
+        continue; // a repeated key
+      } // if
+      nodes = this.advance(nodes, key, base);
+      SLNode<K, V> node = this.next(nodes[0], 0);
+      if ((node != null) && (comparator.compare(node.key, key) == 0)) {
+        tails = result.append(tails, node.key, node.value);
+      } // if
+    } // for
+    return result;
+  } // getAll(Collection)
+
+  /**
+   * Get a view of the entries whose keys are at least lo and less than hi.
+   *
+   * @throws IllegalArgumentException if lo is greater than hi.
+   * @throws NullPointerException if either key is null.
+   */
+  public SubSkipList<K, V> subMap(K lo, K hi) {
+    if ((lo == null) || (hi == null)) {
+      throw new NullPointerException("null key");
+    } // if
+    return new SubSkipList<K, V>(this, lo, hi, false);
+  } // subMap(K, K)
+
+  /**
+   * Get a view of the entries whose keys are less than hi.
+   */
+  public SubSkipList<K, V> headMap(K hi) {
+    if (hi == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return new SubSkipList<K, V>(this, null, hi, false);
+  } // headMap(K)
+
+  /**
+   * Get a view of the entries whose keys are at least lo.
+   */
+  public SubSkipList<K, V> tailMap(K lo) {
+    if (lo == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return new SubSkipList<K, V>(this, lo, null, false);
+  } // tailMap(K)
+
+  /**
+   * Get a view of all the entries, from the largest key to the smallest.
+   */
+  public SubSkipList<K, V> descendingMap() {
+    return new SubSkipList<K, V>(this, null, null, true);
+  } // descendingMap()
+
+  /**
+   * Get a view of the entries at positions from (inclusive) to to
+   * (exclusive), counting from 0.  The view is bounded by the keys at
+   * those positions when it is made, as for subMap, so later changes to
+   * the list can change how many entries it holds.  An empty range
+   * (from == to) gives a view that holds nothing and accepts no keys.
+   *
+   * @throws IndexOutOfBoundsException unless 0 <= from <= to <= size().
+   */
+  public SubSkipList<K, V> subList(int from, int to) {
+    if ((from < 0) || (from > to) || (to > this.size)) {
+      throw new IndexOutOfBoundsException("bad range [" + from + ", " + to + ") of " + this.size);
+    } // if
+    if (from == to) {
+      return new SubSkipList<K, V>(this, null, null, false, true);
+    } // if
+    this.index();
+    K hi = (to < this.size) ? this.select(to) : null;
+    return new SubSkipList<K, V>(this, this.select(from), hi, false);
+  } // subList(int, int)
+
+  /**
+   * Count the keys that are less than key, i.e., find the position at
+   * which key is or would be, counting from 0.  Takes O(log n) time, since
+   * each link knows how many entries it passes over (the first call on a
+   * list that is not indexed also builds the spans; see setIndexed).
+   *
+   * @throws NullPointerException if key is null.
+   */
+  public int rank(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    this.index();
+    int pos = 0;
+    SLNode<K, V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      SLNode<K, V> next = this.next(node, i);
+      while (next != null && comparator.compare(next.key, key) < 0) {
+        pos += this.span(node, i);
+        node = next;
+        next = node.next[i];
+      } // while
+    } // for
+    return pos;
+  } // rank(K)
+
+  /**
+   * Get the key at the given position, counting from 0, so select(0) is
+   * the smallest key and select(size() - 1) the largest.  Takes O(log n)
+   * time once the list is indexed, as for rank.
+   *
+   * @throws IndexOutOfBoundsException unless 0 <= index < size().
+   */
+  public K select(int index) {
+    if ((index < 0) || (index >= this.size)) {
+      throw new IndexOutOfBoundsException("index " + index + " of " + this.size);
+    } // if
+    this.index();
+    return this.nodeAt(index + 1).key;
+  } // select(int)
+
+  /**
+   * Get a Spliterator over the keys, in order.  trySplit cuts the range
+   * at its middle position, which it finds by descending the towers in
+   * O(log n) time, so parallel streams divide the work evenly without
+   * scanning.  That needs spans, so this indexes the list (see
+   * setIndexed).  The list must not change while the Spliterator is in use.
+   */
+  public Spliterator<K> keySpliterator() {
+    this.index();
+    return new Splitter<K>((node) -> node.key,
+        Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL, this.baseComparator());
+  } // keySpliterator()
+
+  /**
+   * Get a Spliterator over the values, in key order, as for keySpliterator.
+   */
+  public Spliterator<V> valueSpliterator() {
+    this.index();
+    return new Splitter<V>((node) -> node.value, 0, null);
+  } // valueSpliterator()
+
+  /**
+   * Get a sequential stream of the entries, in key order.  The list must
+   * not change while the stream is in use.  Unlike the Spliterators, this
+   * does not index the list.
+   */
+  public Stream<Map.Entry<K, V>> stream() {
+    return StreamSupport.stream(this.entrySpliterator(), false);
+  } // stream()
+
+  /**
+   * Get a parallel stream of the entries, which splits the list as
+   * keySpliterator does.  The list must not change while the stream is
+   * in use.
+   */
+  public Stream<Map.Entry<K, V>> parallelStream() {
+    this.index();
+    return StreamSupport.stream(this.entrySpliterator(), true);
+  } // parallelStream()
+
+  /**
+   * Turn finger search on or off.  With finger search on, each operation
+   * starts from the search path of the previous one instead of from the
+   * top of the list, so a lookup costs O(log d), where d is the distance
+   * between the two keys.  That pays off when keys arrive nearly in order.
+   */
+  public void setFingerSearch(boolean fingerSearch) {
+    this.fingerSearch = fingerSearch;
+    this.finger = null;
+  } // setFingerSearch(boolean)
+
+  /**
+   * Turn spans on or off.  With spans, every link records how many
+   * entries it passes over, which is what lets rank, select, subList,
+   * cut, join and the Spliterators' trySplit work in O(log n) time.
+   * Spans cost an extra array per node and extra work in set and remove,
+   * so lists start without them and build them, in O(n) time, the first
+   * time one of those methods needs them.  Call this to build them up
+   * front, or to drop them again when positions are no longer needed.
+   */
+  public void setIndexed(boolean indexed) {
+    if (indexed && !this.indexed) {
+      SLNode<K, V>[] last = this.newPath();
+      int[] lastPos = new int[this.height];
+      int pos = 0;
+      for (SLNode<K, V> node = front.get(0); node != null; node = node.next[0]) {
+        pos++;
+        node.span = new int[node.next.length];
+        for (int i = 0; i < node.next.length; i++) {
+          this.setSpan(last[i], i, pos - lastPos[i]);
+          last[i] = node;
+          lastPos[i] = pos;
+        } // for
+      } // for
+    } else if (!indexed) {
+      for (SLNode<K, V> node = front.get(0); node != null; node = node.next[0]) {
+        node.span = null;
+      } // for
+    } // if/else
+    this.indexed = indexed;
+  } // setIndexed(boolean)
+
+  /**
+   * Choose how the heights of new nodes are picked, e.g., with a seeded
+   * generator for reproducible runs, or with a different probability.
+   * This turns off any tuning.
+   */
+  public void setHeightGenerator(HeightGenerator heights) {
+    if (heights == null) {
+      throw new NullPointerException("null generator");
+    } // if
+    this.heights = heights;
+    this.tuning = null;
+  } // setHeightGenerator(HeightGenerator)
+
+  /**
+   * Let the list pick its own probability and maximum height for the
+   * given target, or pass null to go back to the default generator.  New
+   * nodes are then never taller than the list needs for its current size
+   * (log n in base 1/prob, plus one); existing nodes keep their heights.
+   */
+  public void setTuning(Tuning tuning) {
+    this.heights = (tuning == null) ? HeightGenerator.DEFAULT : tuning.heights;
+    this.tuning = tuning;
+  } // setTuning(Tuning)
+
+  /**
+   * Start collecting metrics on this list's searches and towers, if we
+   * are not already.  Until disableMetrics, the list's comparator is
+   * wrapped in one that counts calls.
+   *
+   * @return the metrics, to poll or to register with JMX.
+   */
+  public SkipListMetrics<K, V> enableMetrics() {
+    if (this.metrics == null) {
+      this.metrics = new SkipListMetrics<K, V>(this, this.comparator);
+      this.comparator = this.metrics.counting;
+    } // if
+    return this.metrics;
+  } // enableMetrics()
+
+  /**
+   * Stop collecting metrics and go back to the plain comparator.
+   */
+  public void disableMetrics() {
+    if (this.metrics != null) {
+      this.comparator = this.metrics.base;
+      this.metrics = null;
+    } // if
+  } // disableMetrics()
+
   /**
    * Print some links (for dump).
    */
@@ -346,41 +758,312 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
   // +---------+
 
   /**
-   * Pick a random height for a new node.
+   * Pick a random height for a new node.  A new node may add at most one
+   * level to the list, so that a lucky early node does not leave later
+   * searches descending through empty levels.
    */
   int randomHeight() {
-    int result = 1;
-    while (rand.nextDouble() < prob) {
-      result = result + 1;
-    }
-    System.out.println("height: " + result);
-    return result;
+    int max = this.highestLevel + 2;
+    if (tuning != null) {
+      max = Math.min(max, tuning.maxHeight(this.size + 1));
+    } // if
+    return heights.nextHeight(max);
   } // randomHeight()
 
+  /**
+   * Build an empty search path, with one entry per level of front.
+   */
+  @SuppressWarnings("unchecked")
+  SLNode<K, V>[] newPath() {
+    return (SLNode<K, V>[]) new SLNode[this.height];
+  } // newPath()
+
+  /**
+   * Add key and value after every other node in the list.  tails holds the
+   * last node on each level (null meaning front) and is updated to include
+   * the new node; the result may be a larger array if front grows.
+   *
+   * @throws IllegalArgumentException if key is not larger than the last key.
+   * @throws NullPointerException if key is null.
+   */
+  SLNode<K, V>[] append(SLNode<K, V>[] tails, K key, V value) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } else if ((tails[0] != null) && (comparator.compare(tails[0].key, key) >= 0)) {
+      throw new IllegalArgumentException("keys out of order: " + key + " after " + tails[0].key);
+    } // if/else
+
+    int h = randomHeight();
+    SLNode<K, V> newnode = new SLNode<K, V>(key, value, h, this.indexed);
+    this.grow(h);
+    if (h > tails.length) {
+      tails = Arrays.copyOf(tails, this.height);
+    } // if
+    if (h - 1 > this.highestLevel) {
+      this.highestLevel = h - 1;
+    } // if (h > highestLevel)
+
+    int dist = 0;
+    for (int i = 0; i < h; i++) {
+      if (this.indexed) {
+        dist = (i == 0) ? 1 : dist + this.distance(tails[i], tails[i - 1], i - 1);
+        this.setSpan(tails[i], i, dist);
+      } // if
+      if (tails[i] == null) {
+        front.set(i, newnode);
+      } else {
+        tails[i].next[i] = newnode;
+      } // if/else
+    } // for
+    for (int i = 0; i < h; i++) {
+      tails[i] = newnode;
+    } // for
+    this.size++;
+    if (metrics != null) {
+      metrics.inserted(h);
+    } // if
+    return tails;
+  } // append(SLNode<K,V>[], K, V)
+
+  /**
+   * Set the value associated with key, given the last node before key on
+   * each level (as from getNodes).  nodes may be changed.
+   *
+   * @return the previous value associated with key (or null, if there's no such value)
+   */
+  V put(SLNode<K, V>[] nodes, K key, V value) {
+    SLNode<K, V> node = this.next(nodes[0], 0);
+
+    // if key is already present
+    if ((node != null) && (comparator.compare(node.key, key) == 0)) {
+      V tmp = node.value;
+      node.value = value;
+      if (listener != null) {
+        listener.overwritten(key, tmp, value);
+      } // if
+      return tmp;
+    } // if key is already present
+
+    // make newnode
+    int top = this.highestLevel;
+    int h = randomHeight();
+    if (listener != null) {
+      listener.heightChosen(h);
+    } // if
+    SLNode<K, V> newnode = new SLNode<K, V>(key, value, h, this.indexed);
+    this.grow(h);
+
+    if (h - 1 > this.highestLevel) {
+      this.highestLevel = h - 1;
+    } // if (h > highestLevel)
+
+    // splice newnode in after the nodes we found on each of its levels
+    SLNode<K, V> below = null;
+    int dist = 0; // from prev to newnode
+    for (int i = 0; i < h; i++) {
+      if ((i > top) && (i < nodes.length)) {
+        nodes[i] = null; // the level was empty, so newnode follows front
+      } // if
+      SLNode<K, V> prev = (i < nodes.length) ? nodes[i] : null;
+      newnode.next[i] = this.next(prev, i); // make newnode point to next element
+      if (this.indexed) {
+        dist = (i == 0) ? 1 : dist + this.distance(prev, below, i - 1);
+        if (newnode.next[i] != null) {
+          newnode.span[i] = this.span(prev, i) + 1 - dist;
+        } // if
+        this.setSpan(prev, i, dist);
+      } // if
+      if (prev == null) {
+        front.set(i, newnode);
+      } else {
+        prev.next[i] = newnode; // correct pointers to newnode
+      } // if/else
+      below = prev;
+    } // for
+    // links that pass over newnode are now one longer
+    for (int i = h; this.indexed && (i <= top); i++) {
+      if (this.next(nodes[i], i) != null) {
+        this.setSpan(nodes[i], i, this.span(nodes[i], i) + 1);
+      } // if
+    } // for
+
+    this.size++;
+    if (metrics != null) {
+      metrics.inserted(h);
+    } // if
+    if (listener != null) {
+      listener.inserted(key, value, h);
+    } // if
+    return null;
+  } // put(SLNode<K,V>[], K, V)
+
+  /**
+   * Find the last node before key on each level of the list.  Entry i of the
+   * result is null when no node at level i precedes key (i.e., front.get(i)
+   * is where key belongs).  Entries above highestLevel are meaningless.
+   *
+   * With finger search on, the result is the finger itself, which is only
+   * valid until the next search.
+   */
   @SuppressWarnings("unchecked")
   SLNode<K, V>[] getNodes(K key) {
 
-    SLNode<K, V>[] nodes = (SLNode<K, V>[]) new Object[highestLevel + 1];
+    if (metrics != null) {
+      metrics.searching();
+    } // if
+
+    if (this.finger != null) {
+      this.finger = this.fingerNodes(this.finger, key);
+      return this.finger;
+    } // if we have a finger
+
+    SLNode<K, V>[] nodes = (SLNode<K, V>[]) new SLNode[this.height];
 
-    SLNode<K, V> node = front.get(highestLevel);
+    SLNode<K, V> node = null;
 
     for (int i = highestLevel; i >= 0; i--) {
-      // invariant: node.key <= key (horizontal)
-      while (comparator.compare(node.key, key) < 0 && node.next(i) != null) {
-        node = node.next(i);
+      if (metrics != null) {
+        metrics.onLevel(i);
+      } // if
+      // invariant: node.key < key (horizontal)
+      SLNode<K, V> next = this.next(node, i);
+      while (next != null && comparator.compare(next.key, key) < 0) {
+        node = next;
+        next = node.next[i];
       } // while
+      nodes[i] = node;
+    } // for
+    if (metrics != null) {
+      metrics.onLevel(-1);
+    } // if
+    if (listener != null) {
+      listener.traversed(key, highestLevel + 1);
+    } // if
 
-      if (front.get(i) == node) {
-        nodes[i] = null;
-        node = front.get(i - 1);
-      } else {
-        nodes[i] = node;
-        node = node.next(i - 1);
-      }
+    if (this.fingerSearch) {
+      this.finger = nodes;
+    } // if
+    return nodes;
+  } // getNodes(K)
+
+  /**
+   * Update nodes, the search path for some earlier key (or a fresh path),
+   * to the search path for key.  We climb from level 0 until the path
+   * brackets key on some level, then descend from there as usual.  Above
+   * that level the old path is still correct, since the old and new keys
+   * fall between the same pair of nodes there.  The result may be a
+   * larger array if front has grown.
+   */
+  SLNode<K, V>[] fingerNodes(SLNode<K, V>[] nodes, K key) {
+    if (nodes.length < this.height) {
+      nodes = Arrays.copyOf(nodes, this.height);
+    } // if front has grown
+
+    int level = 0;
+    while ((level < highestLevel) && !this.brackets(nodes[level], level, key)) {
+      level++;
+    } // while
+
+    SLNode<K, V> node = nodes[level];
+    if ((node != null) && (comparator.compare(node.key, key) >= 0)) {
+      node = null; // key comes before the finger even at the top, so start at front
+    } // if
+
+    for (int i = level; i >= 0; i--) {
+      if (metrics != null) {
+        metrics.onLevel(i);
+      } // if
+      // invariant: node.key < key (horizontal)
+      SLNode<K, V> next = this.next(node, i);
+      while (next != null && comparator.compare(next.key, key) < 0) {
+        node = next;
+        next = node.next[i];
+      } // while
+      nodes[i] = node;
     } // for
+    if (metrics != null) {
+      metrics.onLevel(-1);
+    } // if
+    if (listener != null) {
+      listener.traversed(key, level + 1);
+    } // if
+
+    return nodes;
+  } // fingerNodes(SLNode<K,V>[], K)
+
+  /**
+   * Guess the level at which consecutive keys of a sorted batch of k keys
+   * part ways: about log(size / k) in base 1/prob.
+   */
+  int gapLevel(int k) {
+    double gap = Math.max(1.0, (double) this.size / Math.max(1, k));
+    return (int) (Math.log(gap) / -Math.log(heights.prob()));
+  } // gapLevel(int)
+
+  /**
+   * Move nodes, the search path for some smaller key (or a fresh path),
+   * forward to the search path for key.  This is fingerNodes for keys that
+   * only increase, so every node in the path is known to come before key.
+   * We climb from level base (where the gap to key usually is, if the
+   * caller knows how far apart keys are) until the path brackets key, then
+   * descend, starting each level from the old path until it moves.  A
+   * level where the path does not move costs a single comparison.
+   */
+  SLNode<K, V>[] advance(SLNode<K, V>[] nodes, K key, int base) {
+    if (nodes.length < this.height) {
+      nodes = Arrays.copyOf(nodes, this.height);
+    } // if front has grown
+
+    if (metrics != null) {
+      metrics.searching();
+    } // if
 
+    int level = Math.min(base, highestLevel);
+    SLNode<K, V> next = this.next(nodes[level], level);
+    while ((level < highestLevel) && (next != null) && (comparator.compare(next.key, key) < 0)) {
+      level++;
+      next = this.next(nodes[level], level);
+    } // while
+
+    SLNode<K, V> node = nodes[level];
+    boolean moved = false;
+    for (int i = level; i >= 0; i--) {
+      if (metrics != null) {
+        metrics.onLevel(i);
+      } // if
+      // invariant: node.key < key (horizontal); next is node's successor
+      if (i < level) {
+        if (!moved) {
+          node = nodes[i]; // at or after the node we came down from
+        } // if
+        next = this.next(node, i);
+      } // if
+      while (next != null && comparator.compare(next.key, key) < 0) {
+        node = next;
+        next = node.next[i];
+        moved = true;
+      } // while
+      nodes[i] = node;
+    } // for
+    if (metrics != null) {
+      metrics.onLevel(-1);
+    } // if
+    if (listener != null) {
+      listener.traversed(key, level + 1);
+    } // if
     return nodes;
-  }
+  } // advance(SLNode<K,V>[], K, int)
+
+  /**
+   * Determine whether key belongs right after node on the given level.
+   */
+  boolean brackets(SLNode<K, V> node, int level, K key) {
+    if ((node != null) && (comparator.compare(node.key, key) >= 0)) {
+      return false;
+    } // if key is before node
+    SLNode<K, V> next = this.next(node, level);
+    return (next == null) || (comparator.compare(next.key, key) >= 0);
+  } // brackets(SLNode<K,V>, int, K)
 
   /**
    * ArrayList<SLNode<K, V>> getNodes(K key) { ArrayList<SLNode<K, V>> path = new
@@ -402,27 +1085,252 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
    */
 
   /**
-   * returns the node right in front of where searchKey is
+   * Find the first node whose key is not less than key (or null, if every
+   * key in the list is smaller).
    */
   SLNode<K, V> search(K key) {
-    
-    SLNode<K, V> node = front.get(highestLevel);
+
+    if (this.fingerSearch) {
+      return this.next(this.getNodes(key)[0], 0);
+    } // if
+
+    if (metrics != null) {
+      metrics.searching();
+    } // if
+
+    SLNode<K, V> node = null;
+    SLNode<K, V> next = null;
 
     for (int i = highestLevel; i >= 0; i--) {
-      // invariant: node.key <= key (horizontal)
-      while (comparator.compare(node.key, key) < 0 && node.next(i) != null) {
-        node = node.next(i);
+      if (metrics != null) {
+        metrics.onLevel(i);
+      } // if
+      // invariant: node.key < key (horizontal)
+      next = this.next(node, i);
+      while (next != null && comparator.compare(next.key, key) < 0) {
+        node = next;
+        next = node.next[i];
       } // while
+    } // for
+    if (metrics != null) {
+      metrics.onLevel(-1);
+    } // if
+    if (listener != null) {
+      listener.traversed(key, highestLevel + 1);
+    } // if
 
-      if (front.get(i) == node) {
-        node = front.get(i - 1);
-      } else {
-        node = node.next(i - 1);
-      }
+    return next;
+  } // search
+
+  /**
+   * Find the last node whose key is less than key (or null, if there is
+   * no such node).
+   */
+  SLNode<K, V> lowerNode(K key) {
+    return this.getNodes(key)[0];
+  } // lowerNode(K)
+
+  /**
+   * Find the node with the largest key (or null, if the list is empty).
+   */
+  SLNode<K, V> lastNode() {
+    SLNode<K, V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      SLNode<K, V> next = this.next(node, i);
+      while (next != null) {
+        node = next;
+        next = node.next[i];
+      } // while
     } // for
+    return node;
+  } // lastNode()
+
+  /**
+   * Get the comparator we were built with, without any counting wrapper.
+   */
+  Comparator<K> baseComparator() {
+    return (this.metrics == null) ? this.comparator : this.metrics.base;
+  } // baseComparator()
 
+  /**
+   * Get the node that follows node at the specified level, treating a null
+   * node as the front of the list.
+   */
+  SLNode<K, V> next(SLNode<K, V> node, int level) {
+    if (node == null) {
+      return front.get(level);
+    } else {
+      return node.next[level];
+    } // if/else
+  } // next(SLNode<K,V>, int)
+
+  /**
+   * Find the node at the given position, counting the first node as
+   * position 1 (and the front as 0), by following spans down the towers.
+   */
+  SLNode<K, V> nodeAt(int position) {
+    int pos = 0;
+    SLNode<K, V> node = null;
+    for (int i = highestLevel; (i >= 0) && (pos < position); i--) {
+      SLNode<K, V> next = this.next(node, i);
+      while ((next != null) && (pos + this.span(node, i) <= position)) {
+        pos += this.span(node, i);
+        node = next;
+        next = node.next[i];
+      } // while
+    } // for
     return node;
-  } // search
+  } // nodeAt(int)
+
+  /**
+   * Make sure the links carry spans, building them if need be.
+   */
+  void index() {
+    if (!this.indexed) {
+      this.setIndexed(true);
+    } // if
+  } // index()
+
+  /**
+   * Get a Spliterator over the entries, in key order.
+   */
+  Spliterator<Map.Entry<K, V>> entrySpliterator() {
+    Comparator<Map.Entry<K, V>> byKey = Map.Entry.comparingByKey(this.baseComparator());
+    return new Splitter<Map.Entry<K, V>>(
+        (node) -> new AbstractMap.SimpleImmutableEntry<K, V>(node.key, node.value),
+        Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL, byKey);
+  } // entrySpliterator()
+
+  /**
+   * Get the span of the link that leaves node at the specified level,
+   * treating a null node as the front of the list.
+   */
+  int span(SLNode<K, V> node, int level) {
+    return (node == null) ? frontSpan[level] : node.span[level];
+  } // span(SLNode<K,V>, int)
+
+  /**
+   * Set the span of the link that leaves node at the specified level.
+   */
+  void setSpan(SLNode<K, V> node, int level, int span) {
+    if (node == null) {
+      frontSpan[level] = span;
+    } else {
+      node.span[level] = span;
+    } // if/else
+  } // setSpan(SLNode<K,V>, int, int)
+
+  /**
+   * Count the positions from node to target, following links at the
+   * specified level.  target must be node or come after it on that level
+   * (null meaning front, in both cases).
+   */
+  int distance(SLNode<K, V> node, SLNode<K, V> target, int level) {
+    int dist = 0;
+    while (node != target) {
+      dist += this.span(node, level);
+      node = this.next(node, level);
+    } // while
+    return dist;
+  } // distance(SLNode<K,V>, SLNode<K,V>, int)
+
+  /**
+   * Make sure front has at least h levels.
+   */
+  void grow(int h) {
+    if (h > this.height) {
+      for (int j = this.height; j < h; j++) {
+        front.add(null);
+      } // for
+      this.frontSpan = Arrays.copyOf(this.frontSpan, h);
+      this.height = h;
+    } // if (h > height)
+  } // grow(int)
+
+  /**
+   * Cut the list after the given position: we keep the first position
+   * entries, and the rest move, nodes and all, to a new list, which we
+   * return.  Only the links that cross the cut change, and we find them
+   * by following spans, so this takes O(log n) time once the list is
+   * indexed; both lists come out indexed.  Not for lists with metrics,
+   * whose counts would not follow the nodes.
+   */
+  SkipList<K, V> cut(int position) {
+    this.index();
+    SkipList<K, V> tail = new SkipList<K, V>(this.comparator);
+    tail.indexed = true;
+    tail.heights = this.heights;
+    tail.tuning = this.tuning;
+    tail.grow(this.height);
+    int pos = 0;
+    SLNode<K, V> node = null;
+    for (int i = highestLevel; i >= 0; i--) {
+      SLNode<K, V> next = this.next(node, i);
+      while ((next != null) && (pos + this.span(node, i) <= position)) {
+        pos += this.span(node, i);
+        node = next;
+        next = node.next[i];
+      } // while
+      // node is the last at or before the cut on this level, next the first after it
+      if (next != null) {
+        tail.front.set(i, next);
+        tail.frontSpan[i] = pos + this.span(node, i) - position;
+        tail.highestLevel = Math.max(tail.highestLevel, i);
+        if (node == null) {
+          front.set(i, null);
+        } else {
+          node.next[i] = null;
+        } // if/else
+      } // if
+    } // for
+    while ((this.highestLevel > 0) && (front.get(this.highestLevel) == null)) {
+      this.highestLevel--;
+    } // while
+    tail.size = this.size - position;
+    this.size = position;
+    this.finger = null;
+    return tail;
+  } // cut(int)
+
+  /**
+   * Move every entry of tail, whose keys must all be larger than ours, to
+   * the end of this list, leaving tail empty.  Only our last node on each
+   * level gets a new link, so this takes O(log n) time once both lists
+   * are indexed (which this makes them).  Not for lists with metrics, as
+   * for cut.
+   */
+  void join(SkipList<K, V> tail) {
+    this.index();
+    tail.index();
+    this.grow(tail.highestLevel + 1);
+    int pos = 0;
+    SLNode<K, V> node = null;
+    for (int i = Math.max(this.highestLevel, tail.highestLevel); i >= 0; i--) {
+      SLNode<K, V> next = this.next(node, i);
+      while (next != null) {
+        pos += this.span(node, i);
+        node = next;
+        next = node.next[i];
+      } // while
+      // node is our last node on this level, at position pos
+      SLNode<K, V> head = (i <= tail.highestLevel) ? tail.front.get(i) : null;
+      if (head != null) {
+        this.setSpan(node, i, this.size - pos + tail.frontSpan[i]);
+        if (node == null) {
+          front.set(i, head);
+        } else {
+          node.next[i] = head;
+        } // if/else
+        tail.front.set(i, null);
+      } // if
+    } // for
+    this.highestLevel = Math.max(this.highestLevel, tail.highestLevel);
+    this.size += tail.size;
+    tail.size = 0;
+    tail.highestLevel = 0;
+    this.finger = null;
+    tail.finger = null;
+  } // join(SkipList<K,V>)
 
   /**
    * Get an iterator for all of the nodes. (Useful for implementing the other iterators.)
@@ -435,6 +1343,11 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
        */
       SLNode<K, V> next = SkipList.this.front.get(0);
 
+      /**
+       * The node we returned most recently (for remove).
+       */
+      SLNode<K, V> last = null;
+
       @Override
       public boolean hasNext() {
         return this.next != null;
@@ -446,10 +1359,20 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
           throw new IllegalStateException();
         }
         SLNode<K, V> temp = this.next;
-        this.next = this.next.next.get(0);
+        this.next = this.next.next[0];
+        this.last = temp;
 
         return temp;
       } // next();
+
+      @Override
+      public void remove() {
+        if (this.last == null) {
+          throw new IllegalStateException();
+        } // if
+        SkipList.this.remove(this.last.key);
+        this.last = null;
+      } // remove()
     }; // new Iterator
   } // nodes()
 
@@ -457,6 +1380,161 @@ public class SkipList<K, V> implements SimpleMap<K, V> {
   // | Helpers |
   // +---------+
 
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * What a list can tune itself for.  Each node costs 1 / (1 - prob)
+   * links on average, and a search costs about log(n) / (prob log(1/prob))
+   * comparisons, which is 2 log2(n) for both 1/2 and 1/4.
+   */
+  public enum Tuning {
+    /** prob = 1/4: 1.33 links per node and half as many levels. */
+    MEMORY(0.25),
+    /** prob = 1/e, which minimizes the expected number of comparisons. */
+    BALANCED(1 / Math.E),
+    /** prob = 1/2: 2 links per node, fewest steps per level. */
+    LATENCY(0.5);
+
+    /**
+     * The probability that a node reaches each next level.
+     */
+    final double prob;
+
+    /**
+     * Where heights come from.
+     */
+    final HeightGenerator heights;
+
+    Tuning(double prob) {
+      this.prob = prob;
+      this.heights = HeightGenerator.geometric(prob);
+    } // Tuning(double)
+
+    /**
+     * Determine how tall a list of size entries needs to be.
+     */
+    int maxHeight(int size) {
+      return 1 + (int) Math.ceil(Math.log(Math.max(size, 1)) / -Math.log(prob));
+    } // maxHeight(int)
+  } // enum Tuning
+
+  /**
+   * Spliterators over a run of positions, mapping each node to the
+   * element it contributes.
+   */
+  class Splitter<T> implements Spliterator<T> {
+    /**
+     * What each node contributes.
+     */
+    final Function<SLNode<K, V>, T> element;
+
+    /**
+     * Our characteristics, beyond ORDERED, SIZED and SUBSIZED.
+     */
+    final int characteristics;
+
+    /**
+     * How elements are sorted, if they are SORTED.
+     */
+    final Comparator<? super T> order;
+
+    /**
+     * The next node to visit.
+     */
+    SLNode<K, V> node;
+
+    /**
+     * The position of node.
+     */
+    int pos;
+
+    /**
+     * The position just past our run.
+     */
+    int end;
+
+    /**
+     * Cover the whole list.
+     */
+    Splitter(Function<SLNode<K, V>, T> element, int characteristics,
+        Comparator<? super T> order) {
+      this(element, characteristics, order, front.get(0), 1, size + 1);
+    } // Splitter(Function, int, Comparator)
+
+    /**
+     * Cover positions pos up to end, starting at node.
+     */
+    Splitter(Function<SLNode<K, V>, T> element, int characteristics,
+        Comparator<? super T> order, SLNode<K, V> node, int pos, int end) {
+      this.element = element;
+      this.characteristics = characteristics;
+      this.order = order;
+      this.node = node;
+      this.pos = pos;
+      this.end = end;
+    } // Splitter(Function, int, Comparator, SLNode<K,V>, int, int)
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (pos >= end) {
+        return false;
+      } // if
+      SLNode<K, V> current = node;
+      node = node.next[0];
+      pos++;
+      action.accept(element.apply(current));
+      return true;
+    } // tryAdvance(Consumer)
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      SLNode<K, V> current = node;
+      int remaining = end - pos;
+      node = null;
+      pos = end;
+      for (int i = 0; i < remaining; i++) {
+        action.accept(element.apply(current));
+        current = current.next[0];
+      } // for
+    } // forEachRemaining(Consumer)
+
+    /**
+     * Hand off the first half of our run, if the list is indexed; finding
+     * the middle any other way would mean walking to it.
+     */
+    @Override
+    public Spliterator<T> trySplit() {
+      if ((end - pos < 2) || !indexed) {
+        return null;
+      } // if
+      int mid = (pos + end) >>> 1;
+      Splitter<T> prefix = new Splitter<T>(element, characteristics, order, node, pos, mid);
+      this.node = nodeAt(mid);
+      this.pos = mid;
+      return prefix;
+    } // trySplit()
+
+    @Override
+    public long estimateSize() {
+      return end - pos;
+    } // estimateSize()
+
+    @Override
+    public int characteristics() {
+      return characteristics | Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    } // characteristics()
+
+    @Override
+    public Comparator<? super T> getComparator() {
+      if ((characteristics & Spliterator.SORTED) == 0) {
+        throw new IllegalStateException();
+      } // if
+      return order;
+    } // getComparator()
+  } // class Splitter<T>
+
 } // class SkipList
 
 
@@ -480,25 +1558,41 @@ class SLNode<K, V> {
   V value;
 
   /**
-   * Pointers to the next nodes.
+   * Pointers to the next nodes, one per level of the node's tower.
    */
-  ArrayList<SLNode<K, V>> next;
+  SLNode<K, V>[] next;
+
+  /**
+   * How many positions each link covers: span[i] is the position of
+   * next[i] minus the position of this node, where the first node is at
+   * position 1 and the front at 0.  Meaningless where next[i] is null.
+   * Null unless the list is indexed (see SkipList.setIndexed).
+   */
+  int[] span;
 
   // +--------------+------------------------------------------------
   // | Constructors |
   // +--------------+
 
   /**
-   * Create a new node of height n with the specified key and value.
+   * Create a new node of height n with the specified key and value, and
+   * no spans.
    */
   public SLNode(K key, V value, int n) {
+    this(key, value, n, false);
+  } // SLNode(K, V, int)
+
+  /**
+   * Create a new node of height n with the specified key and value, with
+   * room for spans if spans is true.
+   */
+  @SuppressWarnings("unchecked")
+  public SLNode(K key, V value, int n, boolean spans) {
     this.key = key;
     this.value = value;
-    this.next = new ArrayList<SLNode<K, V>>(n);
-    for (int i = 0; i < n; i++) {
-      this.next.add(null);
-    } // for
-  } // SLNode(K, V, int)
+    this.next = (SLNode<K, V>[]) new SLNode[n];
+    this.span = spans ? new int[n] : null;
+  } // SLNode(K, V, int, boolean)
 
   // +---------+-----------------------------------------------------
   // | Methods |
@@ -507,14 +1601,14 @@ class SLNode<K, V> {
    * Get the next node at the specified level.
    */
   public SLNode<K, V> next(int level) {
-    return this.next.get(level);
+    return this.next[level];
   } // next
 
   /**
    * Set the next node at the specified level.
    */
   public void setNext(int level, SLNode<K, V> next) {
-    this.next.set(level, next);
+    this.next[level] = next;
   } // setNext(int, SLNode<K,V>)
 
 
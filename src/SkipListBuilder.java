@@ -0,0 +1,354 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds SkipLists in runs, on all cores (see SkipList.fromUnsorted and
+ * SkipList.merge).
+ *
+ * The input is cut into runs of increasing keys, one per fork-join task:
+ * for fromUnsorted, slices of the entries after Arrays.parallelSort; for
+ * merge, key ranges of the two lists.  Each task links its run into
+ * level-0 chains and towers of its own.  Finally we stitch the runs
+ * together, joining the last node of each run to the first node of the
+ * next run on every level.  Only the stitching is sequential, and it
+ * costs O(runs * height).  The lists we build are not indexed (see
+ * SkipList.setIndexed).
+ */
+final class SkipListBuilder {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The smallest run worth handing to a task of its own.
+   */
+  static final int MIN_RUN = 1 << 14;
+
+  /**
+   * How many runs to make per core, so that a slow task does not hold
+   * up the rest.
+   */
+  static final int RUNS_PER_CORE = 4;
+
+  // +----------------+----------------------------------------------
+  // | Static Methods |
+  // +----------------+
+
+  /**
+   * Build a list of the entries in batch.  If a key appears more than
+   * once, the last of its entries wins.
+   *
+   * @throws NullPointerException if any key is null.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> SkipList<K, V> build(Collection<? extends Map.Entry<K, V>> batch,
+      Comparator<K> comparator) {
+    Map.Entry<K, V>[] entries = batch.toArray(new Map.Entry[batch.size()]);
+    if (Arrays.stream(entries).parallel().anyMatch((entry) -> entry.getKey() == null)) {
+      throw new NullPointerException("null key");
+    } // if
+    // a stable sort, so that repeated keys stay in batch order
+    Arrays.parallelSort(entries, (e1, e2) -> comparator.compare(e1.getKey(), e2.getKey()));
+
+    SkipList<K, V> list = new SkipList<K, V>(comparator);
+    int n = entries.length;
+    if (n == 0) {
+      return list;
+    } // if
+    int maxHeight = maxHeight(list, n);
+
+    // cut the entries into runs, never splitting a repeated key
+    int count = runCount(n);
+    Run<K, V>[] runs = (Run<K, V>[]) new Run[count];
+    int start = 0;
+    for (int r = 0; r < count; r++) {
+      int end = (r == count - 1) ? n : Math.max(start, (int) ((long) n * (r + 1) / count));
+      while ((end > 0) && (end < n)
+          && (comparator.compare(entries[end - 1].getKey(), entries[end].getKey()) == 0)) {
+        end++;
+      } // while
+      runs[r] = new SortedRun<K, V>(entries, start, end, comparator, list.heights, maxHeight);
+      start = end;
+    } // for
+    ForkJoinTask.invokeAll(runs);
+    return stitch(list, runs, maxHeight);
+  } // build(Collection, Comparator)
+
+  /**
+   * Merge lists a and b, which must share an ordering, into a new list.
+   * Where a key is in both, its value is conflict(value in a, value in
+   * b).  With parallel, the key range is cut into runs at evenly spaced
+   * keys of the larger list (see cutKeys), and the runs are merged by
+   * separate tasks.
+   * Neither list may change until we are done.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> SkipList<K, V> merge(SkipList<K, V> a, SkipList<K, V> b,
+      BiFunction<? super V, ? super V, ? extends V> conflict, boolean parallel) {
+    Comparator<K> comparator = a.baseComparator();
+    SkipList<K, V> list = new SkipList<K, V>(comparator);
+    int n = a.size + b.size;
+    if (n == 0) {
+      return list;
+    } // if
+    int maxHeight = maxHeight(list, n);
+
+    SkipList<K, V> larger = (a.size >= b.size) ? a : b;
+    int count = parallel ? Math.min(runCount(n), larger.size) : 1;
+    Run<K, V>[] runs = (Run<K, V>[]) new Run[count];
+    Object[] cuts = cutKeys(larger, count);
+    K lo = null;
+    for (int r = 0; r < count; r++) {
+      K hi = (r == count - 1) ? null : (K) cuts[r];
+      runs[r] = new MergeRun<K, V>(first(a, lo), first(b, lo), hi, comparator, conflict,
+          list.heights, maxHeight);
+      lo = hi;
+    } // for
+    if (count == 1) {
+      runs[0].invoke(); // in this thread
+    } else {
+      ForkJoinTask.invokeAll(runs);
+    } // if/else
+    return stitch(list, runs, maxHeight);
+  } // merge(SkipList<K,V>, SkipList<K,V>, BiFunction, boolean)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Decide how tall a list of at most n entries should be allowed to get:
+   * log n in base 1/prob, plus one.
+   */
+  static int maxHeight(SkipList<?, ?> list, int n) {
+    return 1 + (int) Math.ceil(Math.log(n) / -Math.log(list.heights.prob()));
+  } // maxHeight(SkipList, int)
+
+  /**
+   * Decide how many runs to cut n entries into.
+   */
+  static int runCount(int n) {
+    return Math.max(1, Math.min(n / MIN_RUN,
+        RUNS_PER_CORE * ForkJoinPool.getCommonPoolParallelism()));
+  } // runCount(int)
+
+  /**
+   * Pick count - 1 keys of list, count <= list.size, that cut it into
+   * count ranges of about the same size.  We take evenly spaced nodes of
+   * the highest level with at least count nodes; each level is a random
+   * sample of the one below, so the ranges come out even on average,
+   * and we only walk O(count) nodes rather than needing spans.
+   */
+  static <K, V> Object[] cutKeys(SkipList<K, V> list, int count) {
+    int level = list.highestLevel;
+    int nodes = 0;
+    for (; level >= 0; level--) {
+      nodes = 0;
+      for (SLNode<K, V> node = list.front.get(level); node != null; node = node.next[level]) {
+        nodes++;
+      } // for
+      if (nodes >= count) {
+        break;
+      } // if
+    } // for
+    Object[] cuts = new Object[count - 1];
+    int index = 0;
+    int r = 0;
+    for (SLNode<K, V> node = list.front.get(level); r < count - 1; node = node.next[level]) {
+      if (index++ == (int) ((long) nodes * (r + 1) / count)) {
+        cuts[r++] = node.key;
+      } // if
+    } // for
+    return cuts;
+  } // cutKeys(SkipList<K,V>, int)
+
+  /**
+   * Find the first node of list whose key is at least lo (or the first
+   * node, if lo is null).
+   */
+  static <K, V> SLNode<K, V> first(SkipList<K, V> list, K lo) {
+    if (lo == null) {
+      return list.front.get(0);
+    } // if
+    return list.search(lo);
+  } // first(SkipList<K,V>, K)
+
+  /**
+   * Link the runs, in order, into list, which must be empty.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> SkipList<K, V> stitch(SkipList<K, V> list, Run<K, V>[] runs, int maxHeight) {
+    list.grow(maxHeight);
+    SLNode<K, V>[] tails = (SLNode<K, V>[]) new SLNode[maxHeight];
+    int offset = 0;
+    for (Run<K, V> run : runs) {
+      for (int i = 0; i < maxHeight; i++) {
+        if (run.heads[i] == null) {
+          continue;
+        } // if the run has nothing on this level
+        if (tails[i] == null) {
+          list.front.set(i, run.heads[i]);
+        } else {
+          tails[i].next[i] = run.heads[i];
+        } // if/else
+        tails[i] = run.tails[i];
+        list.highestLevel = Math.max(list.highestLevel, i);
+      } // for
+      offset += run.size;
+    } // for
+    list.size = offset;
+    return list;
+  } // stitch(SkipList<K,V>, Run<K,V>[], int)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * One run of entries in increasing key order, linked up on its own.
+   */
+  @SuppressWarnings("serial") // never serialized
+  abstract static class Run<K, V> extends RecursiveAction {
+    final HeightGenerator heights;
+    final int maxHeight;
+
+    /**
+     * The first and last node on each level (null if there are none).
+     */
+    final SLNode<K, V>[] heads;
+    final SLNode<K, V>[] tails;
+
+    /**
+     * The number of entries in the run so far.
+     */
+    int size;
+
+    @SuppressWarnings("unchecked")
+    Run(HeightGenerator heights, int maxHeight) {
+      this.heights = heights;
+      this.maxHeight = maxHeight;
+      this.heads = (SLNode<K, V>[]) new SLNode[maxHeight];
+      this.tails = (SLNode<K, V>[]) new SLNode[maxHeight];
+    } // Run(HeightGenerator, int)
+
+    /**
+     * Add an entry after all the others in the run.
+     */
+    void add(K key, V value) {
+      this.size++;
+      int h = heights.nextHeight(maxHeight);
+      SLNode<K, V> node = new SLNode<K, V>(key, value, h);
+      for (int i = 0; i < h; i++) {
+        if (tails[i] == null) {
+          heads[i] = node;
+        } else {
+          tails[i].next[i] = node;
+        } // if/else
+        tails[i] = node;
+      } // for
+    } // add(K, V)
+  } // class Run<K,V>
+
+  /**
+   * A slice of sorted entries.  Of several entries with the same key, the
+   * last wins.
+   */
+  @SuppressWarnings("serial") // never serialized
+  static class SortedRun<K, V> extends Run<K, V> {
+    final Map.Entry<K, V>[] entries;
+    final int start;
+    final int end;
+    final Comparator<K> comparator;
+
+    SortedRun(Map.Entry<K, V>[] entries, int start, int end, Comparator<K> comparator,
+        HeightGenerator heights, int maxHeight) {
+      super(heights, maxHeight);
+      this.entries = entries;
+      this.start = start;
+      this.end = end;
+      this.comparator = comparator;
+    } // SortedRun(Map.Entry<K,V>[], int, int, ...)
+
+    @Override
+    protected void compute() {
+      for (int e = start; e < end; e++) {
+        K key = entries[e].getKey();
+        if ((e + 1 < end) && (comparator.compare(key, entries[e + 1].getKey()) == 0)) {
+          continue; // a later entry has the same key
+        } // if
+        add(key, entries[e].getValue());
+      } // for
+    } // compute()
+  } // class SortedRun<K,V>
+
+  /**
+   * The entries of two lists below some key, merged by walking both
+   * level-0 chains in step.
+   */
+  @SuppressWarnings("serial") // never serialized
+  static class MergeRun<K, V> extends Run<K, V> {
+    final SLNode<K, V> a;
+    final SLNode<K, V> b;
+    final K hi;
+    final Comparator<K> comparator;
+    final BiFunction<? super V, ? super V, ? extends V> conflict;
+
+    /**
+     * Merge from node a of one list and node b of the other (either may
+     * be null) up to, but not including, hi (or to the end, if hi is null).
+     */
+    MergeRun(SLNode<K, V> a, SLNode<K, V> b, K hi, Comparator<K> comparator,
+        BiFunction<? super V, ? super V, ? extends V> conflict, HeightGenerator heights,
+        int maxHeight) {
+      super(heights, maxHeight);
+      this.a = a;
+      this.b = b;
+      this.hi = hi;
+      this.comparator = comparator;
+      this.conflict = conflict;
+    } // MergeRun(SLNode<K,V>, SLNode<K,V>, K, ...)
+
+    /**
+     * Determine whether node holds an entry of this run.
+     */
+    boolean inRun(SLNode<K, V> node) {
+      return (node != null) && ((hi == null) || (comparator.compare(node.key, hi) < 0));
+    } // inRun(SLNode<K,V>)
+
+    @Override
+    protected void compute() {
+      SLNode<K, V> x = inRun(a) ? a : null;
+      SLNode<K, V> y = inRun(b) ? b : null;
+      while ((x != null) && (y != null)) {
+        int order = comparator.compare(x.key, y.key);
+        if (order < 0) {
+          add(x.key, x.value);
+          x = x.next[0];
+        } else if (order > 0) {
+          add(y.key, y.value);
+          y = y.next[0];
+        } else {
+          add(x.key, conflict.apply(x.value, y.value));
+          x = x.next[0];
+          y = y.next[0];
+        } // if/else
+        x = inRun(x) ? x : null;
+        y = inRun(y) ? y : null;
+      } // while
+      for (; x != null; x = inRun(x.next[0]) ? x.next[0] : null) {
+        add(x.key, x.value);
+      } // for
+      for (; y != null; y = inRun(y.next[0]) ? y.next[0] : null) {
+        add(y.key, y.value);
+      } // for
+    } // compute()
+  } // class MergeRun<K,V>
+
+} // class SkipListBuilder
@@ -0,0 +1,76 @@
+import java.io.PrintWriter;
+
+/**
+ * Callbacks for tracing what a SkipList does.  Install one with
+ * SkipList.setListener; with no listener installed, the list does no
+ * tracing work at all.  Every method does nothing by default, so
+ * listeners only need to override the events they care about.
+ */
+public interface SkipListListener<K, V> {
+
+  /**
+   * Called after a search for key has descended through the given number
+   * of levels.  Every search reports, whether from set, get, containsKey,
+   * remove or a batch operation; a finger search counts only the levels
+   * it climbed back up to.
+   */
+  public default void traversed(K key, int levels) {
+  } // traversed(K, int)
+
+  /**
+   * Called when a new node has been chosen to have the given height.
+   */
+  public default void heightChosen(int height) {
+  } // heightChosen(int)
+
+  /**
+   * Called after a new node for key has been inserted.
+   */
+  public default void inserted(K key, V value, int height) {
+  } // inserted(K, V, int)
+
+  /**
+   * Called after the value associated with an existing key is replaced.
+   */
+  public default void overwritten(K key, V oldValue, V newValue) {
+  } // overwritten(K, V, V)
+
+  /**
+   * Called after the node for key has been removed.
+   */
+  public default void removed(K key, V value) {
+  } // removed(K, V)
+
+  /**
+   * Build a listener that prints every event to pen.
+   */
+  public static <K, V> SkipListListener<K, V> printing(PrintWriter pen) {
+    return new SkipListListener<K, V>() {
+      @Override
+      public void traversed(K key, int levels) {
+        pen.println("search for " + key + " traversed " + levels + " levels");
+      } // traversed(K, int)
+
+      @Override
+      public void heightChosen(int height) {
+        pen.println("height: " + height);
+      } // heightChosen(int)
+
+      @Override
+      public void inserted(K key, V value, int height) {
+        pen.println("Added " + key + " with height " + height);
+      } // inserted(K, V, int)
+
+      @Override
+      public void overwritten(K key, V oldValue, V newValue) {
+        pen.println("Replaced " + oldValue + " with " + newValue + " for " + key);
+      } // overwritten(K, V, V)
+
+      @Override
+      public void removed(K key, V value) {
+        pen.println("Removed " + key);
+      } // removed(K, V)
+    };
+  } // printing(PrintWriter)
+
+} // interface SkipListListener<K,V>
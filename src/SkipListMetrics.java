@@ -0,0 +1,235 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters describing how a SkipList's searches behave, for spotting a
+ * degenerate level distribution or a slow comparator.  Get one with
+ * SkipList.enableMetrics.  While metrics are on, the list compares keys
+ * through a counting comparator and tells us which level each search is
+ * on; while they are off, the list pays one null check per level.
+ *
+ * The counters are plain fields updated by the thread using the list.
+ * Read them from that thread for exact values, or from another (e.g.,
+ * through JMX, after register) for values that may be slightly stale.
+ */
+public class SkipListMetrics<K, V> implements SkipListMetricsMBean {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of levels we keep separate counts for.  Anything higher is
+   * counted with the top one.
+   */
+  static final int MAX_LEVELS = 64;
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The list we describe.
+   */
+  final SkipList<K, V> list;
+
+  /**
+   * The list's own comparator.
+   */
+  final Comparator<K> base;
+
+  /**
+   * The comparator the list uses while metrics are on.
+   */
+  final Comparator<K> counting;
+
+  /**
+   * The number of searches since the last reset.
+   */
+  long searches;
+
+  /**
+   * The number of comparisons since the last reset.
+   */
+  long comparisons;
+
+  /**
+   * The number of comparisons made on each level since the last reset.
+   */
+  final long[] visits;
+
+  /**
+   * The number of nodes of each height.
+   */
+  final long[] towers;
+
+  /**
+   * The level the current search is on, or -1 if no search is descending.
+   */
+  int level;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Start counting for list, whose comparator is base.
+   */
+  SkipListMetrics(SkipList<K, V> list, Comparator<K> base) {
+    this.list = list;
+    this.base = base;
+    this.visits = new long[MAX_LEVELS];
+    this.towers = new long[MAX_LEVELS + 1];
+    this.level = -1;
+    this.counting = (k1, k2) -> {
+      this.comparisons++;
+      if (this.level >= 0) {
+        this.visits[this.level]++;
+      } // if
+      return this.base.compare(k1, k2);
+    };
+    for (SLNode<K, V> node = list.front.get(0); node != null; node = node.next[0]) {
+      inserted(node.next.length);
+    } // for
+  } // SkipListMetrics(SkipList<K,V>, Comparator<K>)
+
+  // +---------------+-----------------------------------------------
+  // | MBean methods |
+  // +---------------+
+
+  @Override
+  public long getSearches() {
+    return this.searches;
+  } // getSearches()
+
+  @Override
+  public long getComparisons() {
+    return this.comparisons;
+  } // getComparisons()
+
+  @Override
+  public double getComparisonsPerSearch() {
+    return perSearch(this.comparisons);
+  } // getComparisonsPerSearch()
+
+  @Override
+  public double getAveragePathLength() {
+    long total = 0;
+    for (long count : this.visits) {
+      total += count;
+    } // for
+    return perSearch(total);
+  } // getAveragePathLength()
+
+  @Override
+  public double[] getVisitsPerLevel() {
+    double[] result = new double[list.highestLevel + 1];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = perSearch(this.visits[Math.min(i, MAX_LEVELS - 1)]);
+    } // for
+    return result;
+  } // getVisitsPerLevel()
+
+  @Override
+  public long[] getTowerHistogram() {
+    int top = this.towers.length - 1;
+    while ((top > 0) && (this.towers[top] == 0)) {
+      top--;
+    } // while
+    return Arrays.copyOf(this.towers, top + 1);
+  } // getTowerHistogram()
+
+  @Override
+  public int getHighestLevel() {
+    return list.highestLevel;
+  } // getHighestLevel()
+
+  @Override
+  public int getSize() {
+    return list.size();
+  } // getSize()
+
+  @Override
+  public double getProb() {
+    return list.heights.prob();
+  } // getProb()
+
+  @Override
+  public void reset() {
+    this.searches = 0;
+    this.comparisons = 0;
+    Arrays.fill(this.visits, 0);
+  } // reset()
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Make these metrics visible through the platform MBean server, as
+   * SkipList:type=SkipListMetrics,name=name.
+   *
+   * @return the name we registered under, for unregistering later.
+   */
+  public ObjectName register(String name) throws JMException {
+    ObjectName objectName = new ObjectName("SkipList:type=SkipListMetrics,name="
+        + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  } // register(String)
+
+  /**
+   * Summarize the metrics on one line, e.g., for a log.
+   */
+  @Override
+  public String toString() {
+    return "searches=" + getSearches() + " comparisons/search="
+        + String.format("%.2f", getComparisonsPerSearch()) + " path="
+        + String.format("%.2f", getAveragePathLength()) + " highestLevel=" + getHighestLevel()
+        + " size=" + getSize() + " towers=" + Arrays.toString(getTowerHistogram());
+  } // toString()
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Note that a search is starting.
+   */
+  void searching() {
+    this.searches++;
+  } // searching()
+
+  /**
+   * Note that the current search has moved to level (or finished, if
+   * level is -1).
+   */
+  void onLevel(int level) {
+    this.level = Math.min(level, MAX_LEVELS - 1);
+  } // onLevel(int)
+
+  /**
+   * Note a new node of the given height.
+   */
+  void inserted(int height) {
+    this.towers[Math.min(height, MAX_LEVELS)]++;
+  } // inserted(int)
+
+  /**
+   * Note that a node of the given height is gone.
+   */
+  void removed(int height) {
+    this.towers[Math.min(height, MAX_LEVELS)]--;
+  } // removed(int)
+
+  /**
+   * Average a count over the searches.
+   */
+  double perSearch(long count) {
+    return (this.searches == 0) ? 0 : (double) count / this.searches;
+  } // perSearch(long)
+
+} // class SkipListMetrics<K,V>
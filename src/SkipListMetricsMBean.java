@@ -0,0 +1,60 @@
+/**
+ * What SkipListMetrics shows through JMX.
+ */
+public interface SkipListMetricsMBean {
+
+  /**
+   * Get the number of searches (one per set, get, containsKey, remove,
+   * and key of a batch) since the last reset.
+   */
+  public long getSearches();
+
+  /**
+   * Get the number of comparator calls since the last reset.
+   */
+  public long getComparisons();
+
+  /**
+   * Get the average number of comparator calls per search.
+   */
+  public double getComparisonsPerSearch();
+
+  /**
+   * Get the average number of nodes a search examines on its way down.
+   */
+  public double getAveragePathLength();
+
+  /**
+   * Get the average number of nodes a search examines on each level,
+   * starting with level 0.
+   */
+  public double[] getVisitsPerLevel();
+
+  /**
+   * Get the number of nodes of each height; entry h counts the nodes of
+   * height h (so entry 0 is always 0).
+   */
+  public long[] getTowerHistogram();
+
+  /**
+   * Get the index of the highest level that holds any node.
+   */
+  public int getHighestLevel();
+
+  /**
+   * Get the number of entries in the list.
+   */
+  public int getSize();
+
+  /**
+   * Get the probability the list uses for new heights.
+   */
+  public double getProb();
+
+  /**
+   * Zero the search and comparison counters.  (The tower histogram
+   * describes the list, so it is not reset.)
+   */
+  public void reset();
+
+} // interface SkipListMetricsMBean
@@ -1,7 +1,20 @@
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -221,6 +234,46 @@ public class SkipListTests {
     assertFalse(strings.containsKey("hello"));
   } // emptyTest()
 
+  /**
+   * set, get and overwrite on a fresh list, with tall towers (so
+   * that the search descends through empty fronts and long links).
+   */
+  @Test
+  public void testSetGetOverwrite() {
+    SkipList<Integer, String> list = new SkipList<Integer, String>(Integer.class);
+    list.setHeightGenerator(HeightGenerator.geometric(0.75, 1));
+    list.setIndexed(true);
+    try {
+      list.get(1);
+      fail("get on an empty list should throw");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+    assertNull(list.set(1, "one"));
+    assertEquals("one", list.get(1));
+    assertEquals("one", list.set(1, "uno"));
+    assertEquals("uno", list.get(1));
+    assertEquals(1, list.size());
+    for (int i = 100; i >= 0; i -= 2) {
+      assertNull(list.set(i, value(i)));
+    } // for
+    for (int i = 0; i <= 100; i += 2) {
+      assertEquals(value(i), list.set(i, value(i) + "!"));
+    } // for
+    for (int i = 0; i <= 100; i++) {
+      if (i == 1) {
+        assertEquals("uno", list.get(i));
+      } else if (i % 2 == 0) {
+        assertEquals(value(i) + "!", list.get(i));
+      } else {
+        assertFalse(list.containsKey(i));
+      } // if/else
+    } // for
+    assertEquals(52, list.size());
+    assertTrue(inOrder(list.keys()));
+    checkSpans(list);
+  } // testSetGetOverwrite()
+
   // +-----------------+-------------------------------------------------
   // | RandomizedTests |
   // +-----------------+
@@ -319,6 +372,739 @@ public class SkipListTests {
     } // if (!ok)
   } // randomTest()
   
+  /**
+   * Verify that a listener hears every event, and that a search reports
+   * how many levels it actually descended.
+   */
+  @Test
+  public void testListener() {
+    ArrayList<String> events = new ArrayList<String>();
+    SkipList<Integer, String> list = new SkipList<Integer, String>(Integer.class);
+    list.setListener(new SkipListListener<Integer, String>() {
+      @Override
+      public void traversed(Integer key, int levels) {
+        events.add("traversed " + key + " " + levels);
+      } // traversed(Integer, int)
+
+      @Override
+      public void heightChosen(int height) {
+        events.add("height " + height);
+      } // heightChosen(int)
+
+      @Override
+      public void inserted(Integer key, String value, int height) {
+        events.add("inserted " + key + " " + value + " " + height);
+      } // inserted(Integer, String, int)
+
+      @Override
+      public void overwritten(Integer key, String oldValue, String newValue) {
+        events.add("overwritten " + key + " " + oldValue + " " + newValue);
+      } // overwritten(Integer, String, String)
+
+      @Override
+      public void removed(Integer key, String value) {
+        events.add("removed " + key + " " + value);
+      } // removed(Integer, String)
+    });
+
+    list.set(1, "one");
+    int h = list.front.get(0).next.length;
+    assertEquals(Arrays.asList("traversed 1 1", "height " + h, "inserted 1 one " + h), events);
+    events.clear();
+    list.set(1, "uno");
+    assertEquals(Arrays.asList("traversed 1 " + h, "overwritten 1 one uno"), events);
+    events.clear();
+    list.get(1);
+    list.containsKey(2);
+    list.remove(2);
+    assertEquals(Arrays.asList("traversed 1 " + h, "traversed 2 " + h, "traversed 2 " + h),
+        events);
+    events.clear();
+    list.remove(1);
+    assertEquals(Arrays.asList("traversed 1 " + h, "removed 1 uno"), events);
+
+    // a second search for the same key only looks at level 0
+    list.setListener(null);
+    for (int i = 0; i < 1000; i++) {
+      list.set(i, value(i));
+    } // for
+    list.setListener(new SkipListListener<Integer, String>() {
+      @Override
+      public void traversed(Integer key, int levels) {
+        events.add("traversed " + key + " " + levels);
+      } // traversed(Integer, int)
+    });
+    list.setFingerSearch(true);
+    events.clear();
+    list.get(500);
+    list.containsKey(500);
+    assertEquals(Arrays.asList("traversed 500 " + (list.highestLevel + 1), "traversed 500 1"),
+        events);
+  } // testListener()
+
+  /**
+   * Verify that finger search finds the same things as ordinary search,
+   * for a mix of nearly-sorted and random keys.
+   */
+  @Test
+  public void testFingerSearch() {
+    setup();
+    ints.setFingerSearch(true);
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    int key = 0;
+    for (int i = 0; i < 2000; i++) {
+      // Mostly walk forward a little, sometimes jump anywhere
+      if (random.nextInt(10) == 0) {
+        key = random.nextInt(1000);
+      } else {
+        key = Math.max(0, key + random.nextInt(7) - 2);
+      } // if/else
+      if (random.nextBoolean()) {
+        set(key);
+        expected.put(key, value(key));
+      } else if (ints.containsKey(key) != expected.containsKey(key)) {
+        log("containsKey(" + key + ") disagrees with a TreeMap");
+        printTest();
+        fail("finger search lost track of " + key);
+      } // if/else
+    } // for
+    for (Integer k : expected.keySet()) {
+      assertTrue(ints.containsKey(k));
+    } // for
+    assertTrue(inOrder(ints.keys()));
+  } // testFingerSearch()
+
+  /**
+   * Verify that fromSorted builds a list with all of the entries, and that
+   * it rejects unsorted input.
+   */
+  @Test
+  public void testFromSorted() {
+    TreeMap<Integer, String> entries = new TreeMap<Integer, String>();
+    for (int i = 0; i < 500; i++) {
+      int rand = random.nextInt(1000);
+      entries.put(rand, value(rand));
+    } // for
+    SkipList<Integer, String> list =
+        SkipList.fromSorted(entries.entrySet().iterator(), (i, j) -> i - j);
+    assertEquals(entries.size(), list.size());
+    assertTrue(inOrder(list.keys()));
+    for (Integer key : entries.keySet()) {
+      assertEquals(entries.get(key), list.get(key));
+    } // for
+    // The result should be an ordinary list
+    list.set(-1, "minus one");
+    assertTrue(list.containsKey(-1));
+
+    ArrayList<Map.Entry<Integer, String>> unsorted = new ArrayList<Map.Entry<Integer, String>>();
+    unsorted.add(new AbstractMap.SimpleEntry<Integer, String>(2, "two"));
+    unsorted.add(new AbstractMap.SimpleEntry<Integer, String>(1, "one"));
+    try {
+      SkipList.fromSorted(unsorted.iterator(), (Integer i, Integer j) -> i - j);
+      fail("fromSorted accepted unsorted input");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } // try/catch
+  } // testFromSorted()
+
+  /**
+   * Verify that sub-map views see exactly the keys in their range, in
+   * both directions.
+   */
+  @Test
+  public void testSubMap() {
+    setup();
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    for (int i = 0; i < 300; i++) {
+      int rand = random.nextInt(500);
+      set(rand);
+      expected.put(rand, value(rand));
+    } // for
+    for (int trial = 0; trial < 20; trial++) {
+      int lo = random.nextInt(500);
+      int hi = lo + random.nextInt(500 - lo + 1);
+      ArrayList<Integer> want = new ArrayList<Integer>(expected.subMap(lo, hi).keySet());
+      ArrayList<Integer> got = new ArrayList<Integer>();
+      ints.subMap(lo, hi).keys().forEachRemaining(got::add);
+      assertEquals("subMap(" + lo + ", " + hi + ")", want, got);
+      assertEquals(want.size(), ints.subMap(lo, hi).size());
+
+      Collections.reverse(want);
+      got.clear();
+      ints.subMap(lo, hi).descending().keys().forEachRemaining(got::add);
+      assertEquals("descending subMap(" + lo + ", " + hi + ")", want, got);
+    } // for
+    ArrayList<Integer> head = new ArrayList<Integer>();
+    ints.headMap(250).keys().forEachRemaining(head::add);
+    assertEquals(new ArrayList<Integer>(expected.headMap(250).keySet()), head);
+    ArrayList<Integer> tail = new ArrayList<Integer>();
+    ints.tailMap(250).keys().forEachRemaining(tail::add);
+    assertEquals(new ArrayList<Integer>(expected.tailMap(250).keySet()), tail);
+    ArrayList<Integer> all = new ArrayList<Integer>();
+    ints.descendingMap().keys().forEachRemaining(all::add);
+    assertEquals(new ArrayList<Integer>(expected.descendingKeySet()), all);
+    assertFalse(ints.headMap(250).containsKey(250));
+
+    // narrowing: up to and including the view's own upper bound
+    SubSkipList<Integer, String> view = ints.subMap(100, 200);
+    assertEquals(0, view.subMap(200, 200).size());
+    assertEquals(view.size(), view.subMap(100, 200).size());
+    assertEquals(expected.subMap(150, 200).size(), view.subMap(150, 200).size());
+    for (int[] bad : new int[][] {{99, 150}, {150, 201}, {201, 201}}) {
+      try {
+        view.subMap(bad[0], bad[1]);
+        fail("narrowed [100, 200) to [" + bad[0] + ", " + bad[1] + ")");
+      } catch (IllegalArgumentException e) {
+        // expected
+      } // try/catch
+    } // for
+    for (SubSkipList<Integer, String> open : Arrays.asList(view, ints.tailMap(100))) {
+      try {
+        open.subMap(150, null);
+        fail("narrowed to a null upper bound");
+      } catch (NullPointerException e) {
+        // expected
+      } // try/catch
+      try {
+        open.subMap(null, 150);
+        fail("narrowed to a null lower bound");
+      } catch (NullPointerException e) {
+        // expected
+      } // try/catch
+    } // for
+  } // testSubMap()
+
+  /**
+   * Verify that removing everything leaves an empty list that still works,
+   * and that the unused upper levels are dropped.
+   */
+  @Test
+  public void testRemoveAll() {
+    setup();
+    for (int i = 0; i < 200; i++) {
+      set(i);
+    } // for
+    for (int i = 0; i < 200; i++) {
+      if (!value(i).equals(ints.remove(i))) {
+        log("remove(" + i + ") returned the wrong value");
+        printTest();
+        fail("remove returned the wrong value");
+      } // if
+    } // for
+    assertEquals(0, ints.size());
+    assertEquals(0, ints.highestLevel);
+    assertFalse(ints.keys().hasNext());
+    assertNull(ints.remove(5));
+    set(5);
+    assertTrue(ints.containsKey(5));
+  } // testRemoveAll()
+
+  /**
+   * Verify that forEach visits every pair in order and that forEachWhile
+   * stops when asked.
+   */
+  @Test
+  public void testForEach() {
+    setup();
+    for (int i = 0; i < 100; i++) {
+      set(random.nextInt(1000));
+    } // for
+    ArrayList<Integer> visited = new ArrayList<Integer>();
+    ints.forEach((key, value) -> {
+      assertEquals(value(key), value);
+      visited.add(key);
+    });
+    assertEquals(ints.size(), visited.size());
+    assertTrue(inOrder(visited.iterator()));
+
+    int[] count = {0};
+    assertFalse(ints.forEachWhile((key, value) -> ++count[0] < 10));
+    assertEquals(10, count[0]);
+    assertTrue(ints.forEachWhile((key, value) -> true));
+  } // testForEach()
+
+  /**
+   * Verify that setAll and getAll agree with a TreeMap on random batches,
+   * including batches with repeated keys.
+   */
+  @Test
+  public void testBatches() {
+    setup();
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    for (int round = 0; round < 20; round++) {
+      ArrayList<Map.Entry<Integer, String>> batch = new ArrayList<Map.Entry<Integer, String>>();
+      int n = random.nextInt(200);
+      for (int i = 0; i < n; i++) {
+        int key = random.nextInt(1000);
+        String value = value(key) + "/" + round + "/" + i;
+        batch.add(new AbstractMap.SimpleEntry<Integer, String>(key, value));
+        expected.put(key, value); // later entries win
+      } // for
+      ints.setAll(batch);
+      assertEquals(expected.size(), ints.size());
+      assertTrue(inOrder(ints.keys()));
+
+      ArrayList<Integer> keys = new ArrayList<Integer>();
+      for (int i = 0; i < 100; i++) {
+        keys.add(random.nextInt(1100));
+      } // for
+      SkipList<Integer, String> found = ints.getAll(keys);
+      for (Integer key : keys) {
+        assertEquals(expected.containsKey(key), found.containsKey(key));
+      } // for
+      found.forEach((key, value) -> assertEquals(expected.get(key), value));
+    } // for
+    for (Integer key : expected.keySet()) {
+      assertEquals(expected.get(key), ints.get(key));
+    } // for
+  } // testBatches()
+
+  /**
+   * Verify that seeded generators repeat themselves, that heights respect
+   * the cap, and that geometric heights have about the right mean.
+   */
+  @Test
+  public void testHeightGenerator() {
+    HeightGenerator a = HeightGenerator.seeded(17);
+    HeightGenerator b = HeightGenerator.seeded(17);
+    HeightGenerator c = HeightGenerator.geometric(0.25, 17);
+    HeightGenerator d = HeightGenerator.geometric(0.25, 17);
+    double total = 0;
+    for (int i = 0; i < 100000; i++) {
+      int h = a.nextHeight(5);
+      assertEquals(h, b.nextHeight(5));
+      assertTrue((h >= 1) && (h <= 5));
+      int g = c.nextHeight(64);
+      assertEquals(g, d.nextHeight(64));
+      assertTrue(g >= 1);
+      total += g;
+    } // for
+    // the mean of a geometric height is 1 / (1 - prob)
+    assertEquals(4.0 / 3.0, total / 100000, 0.02);
+
+    // Lists built with the same seed are built the same way
+    SkipList<Integer, String> one = new SkipList<Integer, String>((i, j) -> i - j);
+    SkipList<Integer, String> two = new SkipList<Integer, String>((i, j) -> i - j);
+    one.setHeightGenerator(HeightGenerator.seeded(42));
+    two.setHeightGenerator(HeightGenerator.seeded(42));
+    for (int i = 0; i < 1000; i++) {
+      int key = random.nextInt(5000);
+      one.set(key, value(key));
+      two.set(key, value(key));
+    } // for
+    assertEquals(one.highestLevel, two.highestLevel);
+    for (SLNode<Integer, String> x = one.front.get(0), y = two.front.get(0); x != null;
+        x = x.next[0], y = y.next[0]) {
+      assertEquals(x.next.length, y.next.length);
+    } // for
+    assertTrue(one.highestLevel < 20);
+  } // testHeightGenerator()
+
+  /**
+   * Verify that a tuned list stays within the height its size calls for,
+   * and that front only grows as needed.
+   */
+  @Test
+  public void testTuning() {
+    setup();
+    assertEquals(1, ints.height);
+    ints.setTuning(SkipList.Tuning.MEMORY);
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(20000);
+      set(key);
+      expected.put(key, value(key));
+      assertTrue(ints.highestLevel < SkipList.Tuning.MEMORY.maxHeight(ints.size()));
+    } // for
+    assertTrue(ints.height <= SkipList.Tuning.MEMORY.maxHeight(ints.size()));
+    ints.setTuning(SkipList.Tuning.LATENCY);
+    for (int i = 0; i < 5000; i++) {
+      int key = random.nextInt(20000);
+      set(key);
+      expected.put(key, value(key));
+    } // for
+    assertEquals(expected.size(), ints.size());
+    assertTrue(inOrder(ints.keys()));
+    for (Integer key : expected.keySet()) {
+      assertEquals(expected.get(key), ints.get(key));
+    } // for
+  } // testTuning()
+
+  /**
+   * Verify that metrics count searches and comparisons, keep the tower
+   * histogram in step with the list, and show up through JMX.
+   */
+  @Test
+  public void testMetrics() throws Exception {
+    setup();
+    for (int i = 0; i < 100; i++) {
+      set(random.nextInt(1000));
+    } // for
+    SkipListMetrics<Integer, String> metrics = ints.enableMetrics();
+    assertTrue(metrics.getTowerHistogram().length > 1);
+    for (int i = 0; i < 500; i++) {
+      int key = random.nextInt(1000);
+      if (random.nextBoolean()) {
+        set(key);
+      } else {
+        ints.remove(key);
+      } // if/else
+    } // for
+    for (int i = 0; i < 500; i++) {
+      ints.containsKey(random.nextInt(1000));
+    } // for
+    assertEquals(1000, metrics.getSearches());
+    assertTrue(metrics.getComparisonsPerSearch() >= metrics.getAveragePathLength());
+    assertTrue(metrics.getAveragePathLength() > 0);
+    assertEquals(ints.highestLevel + 1, metrics.getVisitsPerLevel().length);
+
+    long[] towers = new long[metrics.getTowerHistogram().length];
+    for (SLNode<Integer, String> node = ints.front.get(0); node != null; node = node.next[0]) {
+      towers[node.next.length]++;
+    } // for
+    assertArrayEquals(towers, metrics.getTowerHistogram());
+
+    ObjectName name = metrics.register("testMetrics");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertEquals(ints.size(), server.getAttribute(name, "Size"));
+    server.unregisterMBean(name);
+
+    metrics.reset();
+    assertEquals(0, metrics.getSearches());
+    ints.disableMetrics();
+    ints.containsKey(5);
+    assertEquals(0, metrics.getSearches());
+  } // testMetrics()
+
+  /**
+   * Verify that natural ordering orders numbers by value, and that key
+   * types with no natural order are turned away.
+   */
+  @Test
+  public void testNaturalOrder() {
+    SkipList<Integer, String> byClass = new SkipList<Integer, String>(Integer.class);
+    SkipList<Integer, String> byDefault = new SkipList<Integer, String>();
+    SkipList<Long, String> longs = new SkipList<Long, String>(Long.class);
+    for (int i = -50; i <= 50; i++) {
+      int key = (i * 37) % 101;
+      byClass.set(key, value(Math.abs(key)));
+      byDefault.set(key, value(Math.abs(key)));
+      longs.set(key * 10000000000L, value(Math.abs(key)));
+    } // for
+    assertTrue(inOrder(byClass.keys()));
+    assertTrue(inOrder(byDefault.keys()));
+    assertTrue(inOrder(longs.keys()));
+    assertEquals(Integer.valueOf(-100), byClass.keys().next());
+
+    SkipList<String, String> words = new SkipList<String, String>(String.class);
+    for (String word : numbers) {
+      words.set(word, word);
+    } // for
+    assertTrue(inOrder(words.keys()));
+    assertEquals("eight", words.keys().next());
+
+    try {
+      new SkipList<Object, String>(Object.class);
+      fail("accepted keys with no natural order");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } // try/catch
+  } // testNaturalOrder()
+
+  /**
+   * Make sure every link's span matches the positions of its ends,
+   * building the spans first if the list is not indexed.
+   */
+  static <K, V> void checkSpans(SkipList<K, V> list) {
+    list.index();
+    IdentityHashMap<SLNode<K, V>, Integer> positions =
+        new IdentityHashMap<SLNode<K, V>, Integer>();
+    int pos = 0;
+    for (SLNode<K, V> node = list.front.get(0); node != null; node = node.next[0]) {
+      positions.put(node, ++pos);
+    } // for
+    assertEquals(list.size(), pos);
+    for (int i = 0; i <= list.highestLevel; i++) {
+      SLNode<K, V> node = null;
+      for (SLNode<K, V> next = list.front.get(i); next != null; next = next.next[i]) {
+        int from = (node == null) ? 0 : positions.get(node);
+        assertEquals("span at level " + i, positions.get(next) - from, list.span(node, i));
+        node = next;
+      } // for
+    } // for
+  } // checkSpans(SkipList)
+
+  /**
+   * Verify rank, select and subList against a sorted set, as the list
+   * changes through set, remove, setAll, fromSorted and finger search.
+   */
+  @Test
+  public void testRanks() {
+    Random random = new Random(21);
+    TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+    SkipList<Integer, String> ints = new SkipList<Integer, String>(Integer.class);
+    for (int round = 0; round < 4; round++) {
+      ints.setFingerSearch(round == 1);
+      if (round == 3) {
+        ints.setIndexed(false); // change it without spans, then rebuild them
+      } // if
+      for (int i = 0; i < 2000; i++) {
+        int key = random.nextInt(1000);
+        if (random.nextInt(3) == 0) {
+          ints.remove(key);
+          expected.remove(key);
+        } else {
+          ints.set(key, value(key));
+          expected.put(key, value(key));
+        } // if/else
+      } // for
+      if (round == 2) {
+        ArrayList<Map.Entry<Integer, String>> batch = new ArrayList<Map.Entry<Integer, String>>();
+        for (int i = 0; i < 300; i++) {
+          int key = random.nextInt(2000);
+          batch.add(new AbstractMap.SimpleEntry<Integer, String>(key, value(key)));
+          expected.put(key, value(key));
+        } // for
+        ints.setAll(batch);
+      } // if
+      checkSpans(ints);
+      Integer[] keys = expected.keySet().toArray(new Integer[0]);
+      assertEquals(keys.length, ints.size());
+      for (int i = 0; i < keys.length; i++) {
+        assertEquals(keys[i], ints.select(i));
+        assertEquals(i, ints.rank(keys[i]));
+      } // for
+      for (int key = -1; key <= 2001; key += 7) {
+        assertEquals(expected.headMap(key).size(), ints.rank(key));
+      } // for
+      int from = random.nextInt(keys.length);
+      int to = from + random.nextInt(keys.length - from + 1);
+      SubSkipList<Integer, String> sub = ints.subList(from, to);
+      assertEquals(to - from, sub.size());
+      Iterator<Integer> it = sub.keys();
+      for (int i = from; i < to; i++) {
+        assertEquals(keys[i], it.next());
+      } // for
+      assertFalse(it.hasNext());
+      assertEquals(0, ints.subList(keys.length, keys.length).size());
+    } // for
+
+    SkipList<Integer, String> sorted =
+        SkipList.fromSorted(expected.entrySet().iterator(), NaturalOrder.INTEGER);
+    checkSpans(sorted);
+    assertEquals(expected.lastKey(), sorted.select(sorted.size() - 1));
+    checkSpans(sorted.getAll(expected.keySet()));
+    try {
+      sorted.select(sorted.size());
+      fail("select past the end");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+  } // testRanks()
+
+  /**
+   * Verify that an empty subList holds nothing and accepts nothing, even
+   * when it was taken from an empty list, as the list changes.
+   */
+  @Test
+  public void testEmptySubList() {
+    SkipList<Integer, String> ints = new SkipList<Integer, String>(Integer.class);
+    SubSkipList<Integer, String> none = ints.subList(0, 0);
+    try {
+      none.set(1, value(1));
+      fail("set through an empty subList");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } // try/catch
+    assertEquals(0, ints.size());
+    for (int i = 2; i <= 10; i += 2) {
+      ints.set(i, value(i));
+    } // for
+    assertEquals(0, none.size());
+    assertFalse(none.containsKey(2));
+    assertFalse(none.keys().hasNext());
+    assertFalse(none.descending().keys().hasNext());
+    for (int pos = 0; pos <= ints.size(); pos++) {
+      SubSkipList<Integer, String> at = ints.subList(pos, pos);
+      ints.set(2 * pos + 1, value(2 * pos + 1)); // just before the key at pos
+      assertEquals(0, at.size());
+      assertFalse(at.containsKey(2 * pos + 1));
+      ints.remove(2 * pos + 1);
+    } // for
+  } // testEmptySubList()
+
+  /**
+   * Verify that the spliterators visit everything in order, and split
+   * evenly.
+   */
+  @Test
+  public void testSpliterator() {
+    SkipList<Integer, String> ints = new SkipList<Integer, String>(Integer.class);
+    assertEquals(0, ints.parallelStream().count());
+    int n = 10000;
+    for (int i = n - 1; i >= 0; i--) {
+      ints.set(i, value(i));
+    } // for
+
+    Spliterator<Integer> keys = ints.keySpliterator();
+    assertTrue(keys.hasCharacteristics(
+        Spliterator.SORTED | Spliterator.ORDERED | Spliterator.DISTINCT));
+    assertEquals(n, keys.getExactSizeIfKnown());
+    Spliterator<Integer> prefix = keys.trySplit();
+    assertEquals(n / 2, prefix.estimateSize());
+    assertEquals(n / 2, keys.estimateSize());
+    int[] next = new int[] {0};
+    prefix.forEachRemaining((key) -> assertEquals(next[0]++, key.intValue()));
+    assertTrue(keys.tryAdvance((key) -> assertEquals(n / 2, key.intValue())));
+    assertEquals(n / 2 - 1, keys.estimateSize());
+
+    long sum = StreamSupport.stream(ints.keySpliterator(), true)
+        .mapToLong(Integer::longValue).sum();
+    assertEquals((long) n * (n - 1) / 2, sum);
+    List<Integer> inOrder = StreamSupport.stream(ints.keySpliterator(), true)
+        .collect(Collectors.toList());
+    for (int i = 0; i < n; i++) {
+      assertEquals(i, inOrder.get(i).intValue());
+    } // for
+    assertTrue(ints.parallelStream().allMatch((e) -> e.getValue().equals(value(e.getKey()))));
+    assertEquals(value(n - 1), ints.stream().reduce((a, b) -> b).get().getValue());
+    assertEquals(n, StreamSupport.stream(ints.valueSpliterator(), true).count());
+  } // testSpliterator()
+
+  /**
+   * Verify that a parallel build matches sets of the same entries,
+   * including repeated keys, and leaves a list that keeps working.
+   */
+  @Test
+  public void testFromUnsorted() {
+    Random random = new Random(23);
+    ArrayList<Map.Entry<Integer, String>> entries = new ArrayList<Map.Entry<Integer, String>>();
+    SkipList<Integer, String> expected = new SkipList<Integer, String>(Integer.class);
+    for (int i = 0; i < 100000; i++) {
+      int key = random.nextInt(60000);
+      String value = key + " " + i;
+      entries.add(new AbstractMap.SimpleEntry<Integer, String>(key, value));
+      expected.set(key, value);
+    } // for
+    SkipList<Integer, String> built = SkipList.fromUnsorted(entries, NaturalOrder.INTEGER);
+    checkSpans(built);
+    assertEquals(expected.size(), built.size());
+    Iterator<Integer> keys = expected.keys();
+    Iterator<String> values = expected.values();
+    Iterator<String> builtValues = built.values();
+    for (Iterator<Integer> it = built.keys(); it.hasNext();) {
+      assertEquals(keys.next(), it.next());
+      assertEquals(values.next(), builtValues.next());
+    } // for
+    for (int key = 0; key < 60000; key += 13) {
+      assertEquals(expected.containsKey(key), built.containsKey(key));
+      if (expected.containsKey(key)) {
+        assertEquals(expected.get(key), built.get(key));
+      } // if
+    } // for
+    built.set(-1, "minus one");
+    built.remove(built.select(100));
+    checkSpans(built);
+
+    assertEquals(0, SkipList.fromUnsorted(new ArrayList<Map.Entry<Integer, String>>(),
+        NaturalOrder.INTEGER).size());
+    entries.add(new AbstractMap.SimpleEntry<Integer, String>(null, "null"));
+    try {
+      SkipList.fromUnsorted(entries, NaturalOrder.INTEGER);
+      fail("accepted a null key");
+    } catch (NullPointerException e) {
+      // expected
+    } // try/catch
+  } // testFromUnsorted()
+
+  /**
+   * Verify merge and parallelMerge against sets into a copy, with and
+   * without overlapping keys.
+   */
+  @Test
+  public void testMerge() {
+    Random random = new Random(24);
+    SkipList<Integer, Integer> a = new SkipList<Integer, Integer>(Integer.class);
+    SkipList<Integer, Integer> b = new SkipList<Integer, Integer>(Integer.class);
+    TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 80000; i++) {
+      int key = random.nextInt(200000);
+      if (random.nextBoolean()) {
+        a.set(key, key);
+      } else {
+        b.set(key, -key);
+      } // if/else
+    } // for
+    a.forEach((k, v) -> expected.put(k, v));
+    b.forEach((k, v) -> expected.merge(k, v, Integer::sum));
+
+    for (boolean parallel : new boolean[] {false, true}) {
+      SkipList<Integer, Integer> merged = parallel
+          ? SkipList.parallelMerge(a, b, Integer::sum) : SkipList.merge(a, b, Integer::sum);
+      checkSpans(merged);
+      assertEquals(expected.size(), merged.size());
+      Iterator<Integer> keys = merged.keys();
+      Iterator<Integer> values = merged.values();
+      for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+        assertEquals(entry.getKey(), keys.next());
+        assertEquals(entry.getValue(), values.next());
+      } // for
+      assertFalse(keys.hasNext());
+    } // for
+
+    SkipList<Integer, Integer> empty = new SkipList<Integer, Integer>(Integer.class);
+    assertEquals(a.size(), SkipList.parallelMerge(empty, a, Integer::sum).size());
+    assertEquals(0, SkipList.merge(empty, empty, Integer::sum).size());
+  } // testMerge()
+
+  /**
+   * Verify that cut and join split and splice lists at any position,
+   * keeping the spans right.
+   */
+  @Test
+  public void testCutJoin() {
+    Random random = new Random(25);
+    int n = 3000;
+    for (int position : new int[] {0, 1, 1500, n - 1, n}) {
+      SkipList<Integer, String> ints = new SkipList<Integer, String>(Integer.class);
+      for (int i = 0; i < n; i++) {
+        int key = 2 * random.nextInt(n);
+        ints.set(key, value(key));
+      } // for
+      TreeMap<Integer, String> expected = new TreeMap<Integer, String>();
+      ints.forEach((k, v) -> expected.put(k, v));
+      int cut = Math.min(position, ints.size());
+      SkipList<Integer, String> tail = ints.cut(cut);
+      checkSpans(ints);
+      checkSpans(tail);
+      assertEquals(cut, ints.size());
+      assertEquals(expected.size() - cut, tail.size());
+      if (tail.size() > 0) {
+        assertEquals(expected.keySet().toArray()[cut], tail.select(0));
+      } // if
+      // the pieces keep working on their own
+      ints.set(-1, "first");
+      tail.set(2 * n + 1, "last");
+      expected.put(-1, "first");
+      expected.put(2 * n + 1, "last");
+      checkSpans(ints);
+      checkSpans(tail);
+      ints.join(tail);
+      checkSpans(ints);
+      checkSpans(tail);
+      assertEquals(0, tail.size());
+      assertEquals(expected.size(), ints.size());
+      Iterator<Integer> keys = ints.keys();
+      for (Integer key : expected.keySet()) {
+        assertEquals(key, keys.next());
+        assertEquals(expected.get(key), ints.get(key));
+      } // for
+      assertFalse(keys.hasNext());
+      tail.set(0, value(0));
+      assertEquals(1, tail.size());
+    } // for
+  } // testCutJoin()
+
   public static void main(String[] args) {
     SkipListTests slt = new SkipListTests();
     slt.setup();
@@ -0,0 +1,366 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A SkipList that may be shared between threads, guarded by one
+ * StampedLock.  set and remove take the write lock.  get, containsKey,
+ * size and iteration first search without locking at all (an optimistic
+ * read) and then check that no write started meanwhile; only if one did
+ * do they search again under the read lock.  Readers therefore never
+ * block each other, and never write to shared memory.
+ *
+ * An optimistic search may see the list half way through a write, so it
+ * can follow stale links, read a node before its fields are visible, or
+ * throw.  That is harmless: links only ever lead to larger keys, so the
+ * search still ends, and whatever it found (or threw) is thrown away
+ * when validation fails.  The search must not write, though, so the
+ * wrapped list never has finger search, metrics or a listener.
+ *
+ * Iterators are weakly consistent: they read BATCH entries at a time,
+ * each batch under its own optimistic read, and pick up after the last
+ * key they returned.  They never throw because of concurrent changes,
+ * and they see each key at most once, in order.
+ */
+public class StampedSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +-----------+---------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * How many entries an iterator reads under each stamp.
+   */
+  static final int BATCH = 64;
+
+  /**
+   * What lookup returns for a missing key (since values may be null).
+   */
+  static final Object MISSING = new Object();
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The entries.  Only touched with the lock held or under a stamp.
+   */
+  final SkipList<K, V> list;
+
+  /**
+   * Guards list.
+   */
+  final StampedLock lock;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new list that orders keys using the specified comparator.
+   */
+  public StampedSkipList(Comparator<K> comparator) {
+    this.list = new SkipList<K, V>(comparator);
+    this.lock = new StampedLock();
+  } // StampedSkipList(Comparator<K>)
+
+  /**
+   * Create a new list that orders keys of class keyType in their natural
+   * order (see NaturalOrder).
+   *
+   * @throws IllegalArgumentException if keyType is not Comparable.
+   */
+  public StampedSkipList(Class<K> keyType) {
+    this(NaturalOrder.of(keyType));
+  } // StampedSkipList(Class<K>)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  @Override
+  public V set(K key, V value) {
+    long stamp = lock.writeLock();
+    try {
+      return list.set(key, value);
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
+  } // set(K, V)
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    Object value = lookup(key);
+    if (value == MISSING) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return (V) value;
+  } // get(K)
+
+  @Override
+  public int size() {
+    long stamp = lock.tryOptimisticRead();
+    int size = list.size;
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        size = list.size;
+      } finally {
+        lock.unlockRead(stamp);
+      } // try/finally
+    } // if
+    return size;
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return lookup(key) != MISSING;
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    long stamp = lock.writeLock();
+    try {
+      return list.remove(key);
+    } finally {
+      lock.unlockWrite(stamp);
+    } // try/finally
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      Cursor cursor = new Cursor();
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public K next() {
+        cursor.advance();
+        return cursor.lastKey;
+      } // next()
+
+      @Override
+      public void remove() {
+        cursor.remove();
+      } // remove()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      Cursor cursor = new Cursor();
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      } // hasNext()
+
+      @Override
+      public V next() {
+        cursor.advance();
+        return cursor.lastValue;
+      } // next()
+
+      @Override
+      public void remove() {
+        cursor.remove();
+      } // remove()
+    };
+  } // values()
+
+  /**
+   * Apply action to each entry, weakly consistently (as the iterators do).
+   * action runs without the lock, so it may itself use the list.
+   */
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    Cursor cursor = new Cursor();
+    while (cursor.hasNext()) {
+      cursor.advance();
+      action.accept(cursor.lastKey, cursor.lastValue);
+    } // while
+  } // forEach(BiConsumer)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Get the value for key, or MISSING if key is not in the list.  Tries
+   * an optimistic read first, then falls back to the read lock.
+   */
+  Object lookup(K key) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        Object value = match(key);
+        if (lock.validate(stamp)) {
+          return value;
+        } // if
+      } catch (RuntimeException e) {
+        if (lock.validate(stamp)) {
+          throw e;
+        } // if the list was stable, the exception is real
+      } // try/catch
+    } // if
+    stamp = lock.readLock();
+    try {
+      return match(key);
+    } finally {
+      lock.unlockRead(stamp);
+    } // try/finally
+  } // lookup(K)
+
+  /**
+   * The body of lookup, without any locking.
+   */
+  Object match(K key) {
+    if (list.size == 0) {
+      return MISSING;
+    } // if
+    SLNode<K, V> node = list.search(key);
+    if ((node != null) && (list.comparator.compare(node.key, key) == 0)) {
+      return node.value;
+    } // if
+    return MISSING;
+  } // match(K)
+
+  /**
+   * Copy up to BATCH entries that follow after (or from the start of the
+   * list, if first) into the cursor's keys and values, returning how many
+   * there were.  Copies the key and value rather than the node, so that
+   * the caller never looks at a node outside a validated read.
+   */
+  int fill(Cursor cursor, K after, boolean first) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        int count = copy(cursor, after, first);
+        if (lock.validate(stamp)) {
+          return count;
+        } // if
+      } catch (RuntimeException e) {
+        if (lock.validate(stamp)) {
+          throw e;
+        } // if
+      } // try/catch
+    } // if
+    stamp = lock.readLock();
+    try {
+      return copy(cursor, after, first);
+    } finally {
+      lock.unlockRead(stamp);
+    } // try/finally
+  } // fill(Cursor, K, boolean)
+
+  /**
+   * The body of fill, without any locking.
+   */
+  int copy(Cursor cursor, K after, boolean first) {
+    SLNode<K, V> node;
+    if (first) {
+      node = list.front.get(0);
+    } else {
+      node = list.search(after);
+      if ((node != null) && (list.comparator.compare(node.key, after) == 0)) {
+        node = node.next[0];
+      } // if
+    } // if/else
+    int count = 0;
+    while ((node != null) && (count < BATCH)) {
+      cursor.keys[count] = node.key;
+      cursor.values[count] = node.value;
+      count++;
+      node = node.next[0];
+    } // while
+    return count;
+  } // copy(Cursor, K, boolean)
+
+  // +----------------+----------------------------------------------
+  // | Nested Classes |
+  // +----------------+
+
+  /**
+   * Walks the list a batch at a time.
+   */
+  class Cursor {
+    /**
+     * Copies of the entries in the current batch.
+     */
+    @SuppressWarnings("unchecked")
+    final K[] keys = (K[]) new Object[BATCH];
+    @SuppressWarnings("unchecked")
+    final V[] values = (V[]) new Object[BATCH];
+
+    /**
+     * How many entries the current batch holds.
+     */
+    int count = 0;
+
+    /**
+     * The index of the next entry in the batch to return.
+     */
+    int pos = 0;
+
+    /**
+     * Whether we have not read any batch yet.
+     */
+    boolean first = true;
+
+    /**
+     * Whether the last batch reached the end of the list.
+     */
+    boolean done = false;
+
+    /**
+     * The entry we returned most recently (for remove).
+     */
+    K lastKey;
+    V lastValue;
+    boolean returned = false;
+
+    boolean hasNext() {
+      if ((pos == count) && !done) {
+        K after = (count == 0) ? null : keys[count - 1];
+        count = fill(this, after, first);
+        first = false;
+        pos = 0;
+        done = (count < BATCH);
+      } // if
+      return pos < count;
+    } // hasNext()
+
+    void advance() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      } // if
+      this.lastKey = keys[pos];
+      this.lastValue = values[pos];
+      this.returned = true;
+      pos++;
+    } // advance()
+
+    void remove() {
+      if (!returned) {
+        throw new IllegalStateException();
+      } // if
+      StampedSkipList.this.remove(this.lastKey);
+      this.returned = false;
+    } // remove()
+  } // class Cursor
+
+} // class StampedSkipList<K,V>
@@ -0,0 +1,147 @@
+import static org.junit.Assert.*;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/**
+ * Tests of StampedSkipList, including readers racing a writer.
+ */
+public class StampedSkipListTests {
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Build an empty list of integers.
+   */
+  static StampedSkipList<Integer, String> ints() {
+    return new StampedSkipList<Integer, String>(Integer.class);
+  } // ints()
+
+  // +-------------+-----------------------------------------------------
+  // | Basic Tests |
+  // +-------------+
+
+  @Test
+  public void basicTest() {
+    StampedSkipList<Integer, String> list = ints();
+    assertFalse(list.containsKey(1));
+    assertNull(list.set(1, "one"));
+    assertEquals("one", list.set(1, "uno"));
+    assertEquals("uno", list.get(1));
+    assertNull(list.set(2, null));
+    assertTrue(list.containsKey(2));
+    assertNull(list.get(2));
+    assertEquals(2, list.size());
+    assertEquals("uno", list.remove(1));
+    assertNull(list.remove(1));
+    assertFalse(list.containsKey(1));
+    assertEquals(1, list.size());
+    try {
+      list.get(3);
+      fail("get of a missing key should throw");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    } // try/catch
+  } // basicTest()
+
+  /**
+   * Iteration crosses batch boundaries, and remove through the iterator
+   * works.
+   */
+  @Test
+  public void iteratorTest() {
+    StampedSkipList<Integer, String> list = ints();
+    int n = 5 * StampedSkipList.BATCH + 3;
+    for (int i = n - 1; i >= 0; i--) {
+      list.set(i, Integer.toString(i));
+    } // for
+    Iterator<Integer> keys = list.keys();
+    Iterator<String> values = list.values();
+    for (int i = 0; i < n; i++) {
+      assertEquals(Integer.valueOf(i), keys.next());
+      assertEquals(Integer.toString(i), values.next());
+      if (i % 2 == 0) {
+        keys.remove();
+      } // if
+    } // for
+    assertFalse(keys.hasNext());
+    assertFalse(values.hasNext());
+    assertEquals(n / 2, list.size());
+    int[] count = new int[1];
+    list.forEach((k, v) -> {
+      assertTrue(k % 2 == 1);
+      assertEquals(Integer.toString(k), v);
+      count[0]++;
+    });
+    assertEquals(n / 2, count[0]);
+  } // iteratorTest()
+
+  // +--------------+----------------------------------------------------
+  // | Stress Tests |
+  // +--------------+
+
+  /**
+   * One thread keeps setting and removing the odd keys while others read.
+   * Readers must always find the even keys, with the right values, never
+   * find a value for the wrong key, and see keys in order when iterating.
+   */
+  @Test
+  public void readersAndWriterTest() throws InterruptedException {
+    StampedSkipList<Integer, String> list = ints();
+    int range = 4000;
+    for (int i = 0; i < range; i += 2) {
+      list.set(i, Integer.toString(i));
+    } // for
+    AtomicBoolean stop = new AtomicBoolean(false);
+    Thread writer = new Thread(() -> {
+      Random random = new Random(1);
+      while (!stop.get()) {
+        int key = 2 * random.nextInt(range / 2) + 1;
+        if (random.nextBoolean()) {
+          list.set(key, Integer.toString(key));
+        } else {
+          list.remove(key);
+        } // if/else
+      } // while
+    });
+    writer.start();
+    try {
+      ConcurrentSkipListTests.inParallel((t) -> {
+        Random random = new Random(t);
+        for (int i = 0; i < 20000; i++) {
+          int key = random.nextInt(range);
+          if (key % 2 == 0) {
+            assertEquals(Integer.toString(key), list.get(key));
+          } else if (list.containsKey(key)) {
+            String value = null;
+            try {
+              value = list.get(key);
+            } catch (IndexOutOfBoundsException e) {
+              // removed in between
+            } // try/catch
+            assertTrue((value == null) || value.equals(Integer.toString(key)));
+          } // if/else
+          if (i % 1000 == 0) {
+            int prev = -1;
+            int evens = 0;
+            Iterator<Integer> it = list.keys();
+            while (it.hasNext()) {
+              int next = it.next();
+              assertTrue(prev + " before " + next, prev < next);
+              evens += (next % 2 == 0) ? 1 : 0;
+              prev = next;
+            } // while
+            assertEquals(range / 2, evens);
+          } // if
+        } // for
+      });
+    } finally {
+      stop.set(true);
+      writer.join();
+    } // try/finally
+  } // readersAndWriterTest()
+
+} // class StampedSkipListTests
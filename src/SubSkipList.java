@@ -0,0 +1,311 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * A view of the entries of a SkipList whose keys fall in a range.  The
+ * view holds no entries of its own: every operation goes to the underlying
+ * list, so changes to either show up in the other.
+ *
+ * Iteration starts with one descent to the lower bound and then follows
+ * level 0 until the upper bound, so a scan of k entries costs
+ * O(log n + k).  Descending iteration has no back links to follow and
+ * instead searches for each predecessor, for O(k log n).  size() uses
+ * the list's ranks, so it takes O(log n) however large the view, once
+ * the list is indexed (see SkipList.setIndexed).
+ */
+public class SubSkipList<K, V> implements SimpleMap<K, V> {
+
+  // +--------+------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The list we are a view of.
+   */
+  final SkipList<K, V> list;
+
+  /**
+   * The smallest key in the view (or null, for no lower bound).
+   */
+  final K lo;
+
+  /**
+   * The key just past the view (or null, for no upper bound).
+   */
+  final K hi;
+
+  /**
+   * Whether keys(), values() and forEach go from high keys to low.
+   */
+  final boolean descending;
+
+  /**
+   * Whether the view covers no keys at all, whatever lo and hi say (as
+   * for an empty subList, which has no keys to bound it).
+   */
+  final boolean empty;
+
+  // +--------------+------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a view of the keys in list that are at least lo and less than
+   * hi.  A null bound means the range is open at that end.
+   */
+  SubSkipList(SkipList<K, V> list, K lo, K hi, boolean descending) {
+    this(list, lo, hi, descending, false);
+  } // SubSkipList(SkipList<K,V>, K, K, boolean)
+
+  /**
+   * Create a view as above, or one that covers nothing, if empty.
+   */
+  SubSkipList(SkipList<K, V> list, K lo, K hi, boolean descending, boolean empty) {
+    if ((lo != null) && (hi != null) && (list.comparator.compare(lo, hi) > 0)) {
+      throw new IllegalArgumentException("lo > hi");
+    } // if
+    this.list = list;
+    this.lo = lo;
+    this.hi = hi;
+    this.descending = descending;
+    this.empty = empty;
+  } // SubSkipList(SkipList<K,V>, K, K, boolean, boolean)
+
+  // +-------------------+-------------------------------------------
+  // | SimpleMap methods |
+  // +-------------------+
+
+  /**
+   * Set the value associated with key.
+   *
+   * @throws IllegalArgumentException if key is outside the view.
+   */
+  @Override
+  public V set(K key, V value) {
+    checkInRange(key);
+    return list.set(key, value);
+  } // set(K, V)
+
+  @Override
+  public V get(K key) {
+    if (!inRange(key)) {
+      throw new IndexOutOfBoundsException("key not found");
+    } // if
+    return list.get(key);
+  } // get(K)
+
+  /**
+   * Count the entries in the view, as the difference of the ranks of its
+   * bounds.  This takes O(log n) time however large the view.
+   */
+  @Override
+  public int size() {
+    if (empty) {
+      return 0;
+    } // if
+    int below = (lo == null) ? 0 : list.rank(lo);
+    int through = (hi == null) ? list.size() : list.rank(hi);
+    return through - below;
+  } // size()
+
+  @Override
+  public boolean containsKey(K key) {
+    return inRange(key) && list.containsKey(key);
+  } // containsKey(K)
+
+  @Override
+  public V remove(K key) {
+    if (!inRange(key)) {
+      return null;
+    } // if
+    return list.remove(key);
+  } // remove(K)
+
+  @Override
+  public Iterator<K> keys() {
+    return new Iterator<K>() {
+      Iterator<SLNode<K, V>> nit = SubSkipList.this.nodes();
+
+      @Override
+      public boolean hasNext() {
+        return nit.hasNext();
+      } // hasNext()
+
+      @Override
+      public K next() {
+        return nit.next().key;
+      } // next()
+    };
+  } // keys()
+
+  @Override
+  public Iterator<V> values() {
+    return new Iterator<V>() {
+      Iterator<SLNode<K, V>> nit = SubSkipList.this.nodes();
+
+      @Override
+      public boolean hasNext() {
+        return nit.hasNext();
+      } // hasNext()
+
+      @Override
+      public V next() {
+        return nit.next().value;
+      } // next()
+    };
+  } // values()
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    for (SLNode<K, V> node = first(); node != null; node = after(node)) {
+      action.accept(node.key, node.value);
+    } // for
+  } // forEach(BiConsumer)
+
+  // +----------------------+----------------------------------------
+  // | Other public methods |
+  // +----------------------+
+
+  /**
+   * Get the same range in the opposite order.
+   */
+  public SubSkipList<K, V> descending() {
+    return new SubSkipList<K, V>(list, lo, hi, !descending, empty);
+  } // descending()
+
+  /**
+   * Narrow the view to keys that are at least lo and less than hi.
+   * Either may equal this view's upper bound.
+   *
+   * @throws IllegalArgumentException if the new range is not inside this one.
+   * @throws NullPointerException if either key is null.
+   */
+  public SubSkipList<K, V> subMap(K lo, K hi) {
+    if ((lo == null) || (hi == null)) {
+      throw new NullPointerException("null key");
+    } // if
+    if (!encloses(lo)) {
+      throw new IllegalArgumentException("key out of range: " + lo);
+    } else if (!encloses(hi)) {
+      throw new IllegalArgumentException("key out of range: " + hi);
+    } // if/else
+    return new SubSkipList<K, V>(list, lo, hi, descending, empty);
+  } // subMap(K, K)
+
+  // +---------+-----------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Determine if key is within the bounds of the view.
+   */
+  boolean inRange(K key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    } // if
+    return !empty
+        && ((lo == null) || (list.comparator.compare(lo, key) <= 0))
+        && ((hi == null) || (list.comparator.compare(key, hi) < 0));
+  } // inRange(K)
+
+  /**
+   * Determine if key can bound a range inside the view: it is at least
+   * lo and at most hi.
+   */
+  boolean encloses(K key) {
+    return ((lo == null) || (list.comparator.compare(lo, key) <= 0))
+        && ((hi == null) || (list.comparator.compare(key, hi) <= 0));
+  } // encloses(K)
+
+  /**
+   * Make sure key is within the bounds of the view.
+   *
+   * @throws IllegalArgumentException if it is not.
+   */
+  void checkInRange(K key) {
+    if (!inRange(key)) {
+      throw new IllegalArgumentException("key out of range: " + key);
+    } // if
+  } // checkInRange(K)
+
+  /**
+   * Get the first node of the view, in iteration order (or null, if the
+   * view is empty).
+   */
+  SLNode<K, V> first() {
+    if (empty) {
+      return null;
+    } // if
+    SLNode<K, V> node;
+    if (descending) {
+      node = (hi == null) ? list.lastNode() : list.lowerNode(hi);
+    } else {
+      node = (lo == null) ? list.front.get(0) : list.search(lo);
+    } // if/else
+    return within(node);
+  } // first()
+
+  /**
+   * Get the node that follows node in iteration order (or null, at the end
+   * of the view).
+   */
+  SLNode<K, V> after(SLNode<K, V> node) {
+    if (descending) {
+      return within(list.lowerNode(node.key));
+    } else {
+      return within(node.next[0]);
+    } // if/else
+  } // after(SLNode<K,V>)
+
+  /**
+   * Return node if it has not run past the end of the view, null otherwise.
+   */
+  SLNode<K, V> within(SLNode<K, V> node) {
+    if (node == null) {
+      return null;
+    } else if (descending) {
+      return ((lo == null) || (list.comparator.compare(lo, node.key) <= 0)) ? node : null;
+    } else {
+      return ((hi == null) || (list.comparator.compare(node.key, hi) < 0)) ? node : null;
+    } // if/else
+  } // within(SLNode<K,V>)
+
+  /**
+   * Get an iterator for the nodes in the view.
+   */
+  Iterator<SLNode<K, V>> nodes() {
+    return new Iterator<SLNode<K, V>>() {
+      /**
+       * The next node to return.  We find the first one lazily, so that
+       * building an iterator does no work.
+       */
+      SLNode<K, V> next;
+
+      /**
+       * Whether next has been found yet.
+       */
+      boolean started = false;
+
+      @Override
+      public boolean hasNext() {
+        if (!started) {
+          this.next = first();
+          this.started = true;
+        } // if
+        return this.next != null;
+      } // hasNext()
+
+      @Override
+      public SLNode<K, V> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        } // if
+        SLNode<K, V> temp = this.next;
+        this.next = after(temp);
+        return temp;
+      } // next()
+    };
+  } // nodes()
+
+} // class SubSkipList<K,V>